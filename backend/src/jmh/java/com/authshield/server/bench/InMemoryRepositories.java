@@ -0,0 +1,47 @@
+package com.authshield.server.bench;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Minimal in-memory stand-ins for Spring Data repositories, so benchmarks exercise the scoring code and
+ * not JDBC. Only the methods a benchmark registers are implemented; anything else throws.
+ */
+public final class InMemoryRepositories {
+
+  private InMemoryRepositories() {}
+
+  public static <T> Builder<T> stub(Class<T> type) {
+    return new Builder<>(type);
+  }
+
+  public static final class Builder<T> {
+    private final Class<T> type;
+    private final Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+
+    private Builder(Class<T> type) { this.type = type; }
+
+    /** Registers a handler for every overload of the named method. */
+    public Builder<T> on(String method, Function<Object[], Object> handler) {
+      handlers.put(method, handler);
+      return this;
+    }
+
+    public T build() {
+      Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, m, args) -> {
+        switch (m.getName()) {
+          case "toString": return "InMemory(" + type.getSimpleName() + ")";
+          case "hashCode": return System.identityHashCode(self);
+          case "equals": return self == args[0];
+          default:
+            Function<Object[], Object> h = handlers.get(m.getName());
+            if (h == null) throw new UnsupportedOperationException(type.getSimpleName() + "." + m.getName());
+            return h.apply(args);
+        }
+      });
+      return type.cast(proxy);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.authshield.server.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the factors map that RiskScoresController.calculate persists to risk_scores.factors,
+ * including the impossible-travel keys merged in when geo context is present.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RiskFactorsJsonBenchmark {
+
+  private ObjectMapper om;
+
+  @Setup
+  public void setup() {
+    om = new ObjectMapper().findAndRegisterModules();
+  }
+
+  @Benchmark
+  public String factorsToJson() throws Exception {
+    Map<String,Object> factors = new HashMap<>();
+    factors.put("deviceFamiliarity", 0.62);
+    factors.put("tlsConsistency", 0.8);
+    factors.put("behavioralMatch", 0.91);
+    factors.put("locationRisk", 0.87);
+    factors.put("timeOfDayRisk", 0.9);
+    factors.put("impossibleTravel", false);
+    factors.put("impossible_travel", false);
+    factors.put("travelDistanceKm", 412.7);
+    factors.put("timeDeltaMinutes", 185.0);
+    factors.put("requiredSpeedKmh", 133.8);
+    return om.writeValueAsString(factors);
+  }
+}
@@ -0,0 +1,53 @@
+package com.authshield.server.service;
+
+import com.authshield.server.service.LocationHistoryCache.KnownLocation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.OffsetDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Great-circle distance and the multi-hop window analysis used by impossible-travel detection. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImpossibleTravelBenchmark {
+
+  private double[] coords;
+  private KnownLocation[] window;
+  private OffsetDateTime now;
+
+  @Setup
+  public void setup() {
+    Random rnd = new Random(7);
+    coords = new double[4 * 256];
+    for (int i = 0; i < coords.length; i += 2) {
+      coords[i] = rnd.nextDouble() * 180 - 90;
+      coords[i + 1] = rnd.nextDouble() * 360 - 180;
+    }
+
+    now = OffsetDateTime.now();
+    window = new KnownLocation[16];
+    for (int i = 0; i < window.length; i++) {
+      window[i] = new KnownLocation(coords[2 * i], coords[2 * i + 1], now.minusMinutes(30L * (window.length - i)),
+        "10.0.0." + i, "City" + i, "C" + (i % 4));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(256)
+  public void haversineKm(Blackhole bh) {
+    for (int i = 0; i < coords.length; i += 4) {
+      bh.consume(ImpossibleTravelService.haversineKm(coords[i], coords[i + 1], coords[i + 2], coords[i + 3]));
+    }
+  }
+
+  @Benchmark
+  public Object analyzeWindow16() {
+    return ImpossibleTravelService.analyzeWindow(window, coords[0], coords[1], "C0", now);
+  }
+}
@@ -0,0 +1,166 @@
+package com.authshield.server.service;
+
+import com.authshield.server.bench.InMemoryRepositories;
+import com.authshield.server.dto.ml.AnomalyResult;
+import com.authshield.server.dto.ml.BaselineProfile;
+import com.authshield.server.dto.ml.BehaviorFeature;
+import com.authshield.server.dto.ml.BehaviorVector;
+import com.authshield.server.dto.ml.MlScoreRequest;
+import com.authshield.server.dto.ml.ScoreResponse;
+import com.authshield.server.model.BehavioralBaseline;
+import com.authshield.server.model.BehavioralPattern;
+import com.authshield.server.model.DeviceProfile;
+import com.authshield.server.model.TlsFingerprint;
+import com.authshield.server.repo.BehavioralBaselineRepository;
+import com.authshield.server.repo.BehavioralPatternRepository;
+import com.authshield.server.repo.DeviceProfileRepository;
+import com.authshield.server.repo.TlsFingerprintRepository;
+import com.authshield.server.service.risk.BehavioralScoringStage;
+import com.authshield.server.service.risk.ComponentScoringStage;
+import com.authshield.server.service.risk.DecisionStage;
+import com.authshield.server.service.risk.RiskContext;
+import com.authshield.server.service.risk.RiskEngine;
+import com.authshield.server.service.risk.RiskPipeline;
+import com.authshield.server.service.risk.RiskProfile;
+import com.authshield.server.service.risk.SignalFetchStage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring hot path with repositories stubbed in memory and a warm baseline cache.
+ *
+ * Run with {@code mvn -Pjmh test-compile exec:exec@jmh -Djmh.args="-prof gc ScoringBenchmark"}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScoringBenchmark {
+
+  private static final String USER = "user-1";
+
+  private MlScoringService ml;
+  private RiskPipeline pipeline;
+  private BaselineProfile baseline;
+  private BehaviorVector currentBehavior;
+  private MlScoreRequest scoreRequest;
+  private double[] zInputs;
+
+  @Setup
+  public void setup() {
+    Random rnd = new Random(42);
+
+    List<BehavioralPattern> history = new ArrayList<>();
+    BehavioralBaseline row = new BehavioralBaseline();
+    row.setUserId(USER);
+    for (int i = 0; i < 200; i++) {
+      BehavioralPattern p = pattern(rnd);
+      history.add(p);
+      row.accumulate(p);
+    }
+    BehavioralPattern latest = history.get(history.size() - 1);
+
+    List<DeviceProfile> userDevices = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      DeviceProfile d = new DeviceProfile();
+      d.setId("device-" + i);
+      d.setUserId(USER);
+      d.setSeenCount(3 + i);
+      d.setTrustScore(0.6);
+      userDevices.add(d);
+    }
+
+    TlsFingerprint fp = new TlsFingerprint();
+    fp.setId("tls-1");
+    fp.setJa3Hash("771,4865-4866-4867,0-23-65281,29-23-24,0");
+    fp.setTrustScore(0.8);
+
+    BehavioralPatternRepository patterns = InMemoryRepositories.stub(BehavioralPatternRepository.class)
+      .on("findById", a -> Optional.of(latest))
+      .on("findByUserIdOrderByCreatedAtDesc", a -> history)
+      .build();
+    DeviceProfileRepository devices = InMemoryRepositories.stub(DeviceProfileRepository.class)
+      .on("findByUserIdOrderByLastSeenDesc", a -> userDevices)
+      .build();
+    TlsFingerprintRepository tls = InMemoryRepositories.stub(TlsFingerprintRepository.class)
+      .on("findById", a -> fp.getId().equals(a[0]) ? Optional.of(fp) : Optional.empty())
+      .on("findTrustViewsByHash", a -> List.of())
+      .build();
+    BehavioralBaselineRepository baselineRepo = InMemoryRepositories.stub(BehavioralBaselineRepository.class)
+      .on("findById", a -> USER.equals(a[0]) ? Optional.of(row) : Optional.empty())
+      .build();
+
+    BaselineCache cache = new BaselineCache(10_000, Duration.ofMinutes(5));
+    BehavioralBaselineService baselines = new BehavioralBaselineService(baselineRepo, patterns, cache);
+    TlsTrustIndex index = new TlsTrustIndex(tls, 0, 10_000, Duration.ofMinutes(1));
+    ml = new MlScoringService(patterns, devices, tls, baselines, cache, index, null, null, false, Duration.ofMillis(250), 1);
+    // The ml/score stages that don't touch travel history, persistence or the WebSocket hub.
+    pipeline = new RiskPipeline(List.of(new SignalFetchStage(ml), new ComponentScoringStage(),
+      new BehavioralScoringStage(ml), new DecisionStage()));
+
+    baseline = ml.getUserBaseline(USER);
+
+    currentBehavior = new BehaviorVector()
+      .set(BehaviorFeature.MOUSE_SPEED, 1.4)
+      .set(BehaviorFeature.MOUSE_ACCELERATION, 0.35)
+      .set(BehaviorFeature.KEY_HOLD_TIME, 118.0)
+      .set(BehaviorFeature.FLIGHT_TIME, 95.0)
+      .set(BehaviorFeature.TYPING_SPEED, 5.2)
+      .set(BehaviorFeature.STRAIGHT_LINE_RATIO, 0.7)
+      .set(BehaviorFeature.CURVE_COMPLEXITY, 0.2);
+
+    scoreRequest = new MlScoreRequest();
+    scoreRequest.userId = USER;
+    scoreRequest.deviceProfileId = "device-2";
+    scoreRequest.tlsFingerprintId = "tls-1";
+    scoreRequest.currentBehavior = currentBehavior;
+
+    zInputs = new double[1024];
+    for (int i = 0; i < zInputs.length; i++) zInputs[i] = 100 + rnd.nextGaussian() * 30;
+  }
+
+  @Benchmark
+  public AnomalyResult scoreCurrentBehavior() {
+    return ml.scoreCurrentBehavior(USER, currentBehavior);
+  }
+
+  @Benchmark
+  public AnomalyResult scoreAgainstBaseline() {
+    return ml.scoreAgainstBaseline(baseline, currentBehavior);
+  }
+
+  @Benchmark
+  public ScoreResponse scoreOverall() {
+    return RiskEngine.toScoreResponse(pipeline.run(new RiskContext(RiskProfile.ML_SCORE, scoreRequest)));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(1024)
+  public void zScoreToAnomalyProbability(Blackhole bh) {
+    for (double v : zInputs) {
+      bh.consume(MlScoringService.zScoreToAnomalyProbability(MlScoringService.calculateZScore(v, 100.0, 15.0)));
+    }
+  }
+
+  private static BehavioralPattern pattern(Random rnd) {
+    BehavioralPattern p = new BehavioralPattern();
+    p.setId(UUID.randomUUID().toString());
+    p.setUserId(USER);
+    p.setAvgMouseSpeed(1.2 + rnd.nextGaussian() * 0.2);
+    p.setAvgMouseAcceleration(0.3 + rnd.nextGaussian() * 0.05);
+    p.setAvgKeyHoldTime(110 + rnd.nextGaussian() * 12);
+    p.setAvgFlightTime(90 + rnd.nextGaussian() * 10);
+    p.setTypingSpeed(5 + rnd.nextGaussian() * 0.6);
+    p.setStraightLineRatio(0.65 + rnd.nextGaussian() * 0.05);
+    p.setCurveComplexity(0.25 + rnd.nextGaussian() * 0.04);
+    p.setCreatedAt(OffsetDateTime.now());
+    return p;
+  }
+}
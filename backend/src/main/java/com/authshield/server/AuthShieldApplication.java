@@ -2,8 +2,10 @@ package com.authshield.server;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class AuthShieldApplication {
   public static void main(String[] args) {
     SpringApplication.run(AuthShieldApplication.class, args);
@@ -3,6 +3,7 @@ package com.authshield.server.controller;
 import com.authshield.server.dto.common.IdResponse;
 import com.authshield.server.model.AnomalyAlert;
 import com.authshield.server.repo.AnomalyAlertRepository;
+import com.authshield.server.service.DashboardRollupService;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -11,14 +12,21 @@ import java.util.List;
 @RequestMapping("/api/anomaly-alerts")
 public class AnomalyAlertsController {
   private final AnomalyAlertRepository repo;
-  public AnomalyAlertsController(AnomalyAlertRepository repo) { this.repo = repo; }
+  private final DashboardRollupService rollups;
+  public AnomalyAlertsController(AnomalyAlertRepository repo, DashboardRollupService rollups) {
+    this.repo = repo;
+    this.rollups = rollups;
+  }
 
   @GetMapping
   public List<AnomalyAlert> list() { return repo.findTop200ByOrderByCreatedAtDesc(); }
 
   @PostMapping
   public IdResponse create(@RequestBody AnomalyAlert body) {
+    // Saving over an existing id updates that row; only new rows are counted.
+    boolean isNew = body.getId() == null || !repo.existsById(body.getId());
     AnomalyAlert saved = repo.save(body);
+    if (isNew) rollups.record(DashboardRollupService.ANOMALY_ALERTS, saved.getCreatedAt());
     return new IdResponse(saved.getId());
   }
 }
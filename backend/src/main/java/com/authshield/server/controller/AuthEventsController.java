@@ -1,10 +1,14 @@
 package com.authshield.server.controller;
 
+import com.authshield.server.dto.common.BulkIngestResponse;
 import com.authshield.server.dto.common.IdResponse;
 import com.authshield.server.model.AuthenticationEvent;
 import com.authshield.server.repo.AuthenticationEventRepository;
+import com.authshield.server.service.DashboardRollupService;
+import com.authshield.server.service.BulkIngestService;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -12,15 +16,30 @@ import java.util.List;
 public class AuthEventsController {
 
   private final AuthenticationEventRepository repo;
+  private final DashboardRollupService rollups;
+  private final BulkIngestService ingest;
 
-  public AuthEventsController(AuthenticationEventRepository repo) { this.repo = repo; }
+  public AuthEventsController(AuthenticationEventRepository repo, DashboardRollupService rollups, BulkIngestService ingest) {
+    this.repo = repo;
+    this.rollups = rollups;
+    this.ingest = ingest;
+  }
 
   @GetMapping
   public List<AuthenticationEvent> list() { return repo.findTop200ByOrderByCreatedAtDesc(); }
 
   @PostMapping
   public IdResponse create(@RequestBody AuthenticationEvent body) {
+    // Saving over an existing id updates that row; only new rows are counted.
+    boolean isNew = body.getId() == null || !repo.existsById(body.getId());
     AuthenticationEvent saved = repo.save(body);
+    if (isNew) rollups.record(DashboardRollupService.AUTH_EVENTS, saved.getCreatedAt());
     return new IdResponse(saved.getId());
   }
+
+  /** NDJSON stream of events, one object per line, loaded with COPY. See {@link BulkIngestService}. */
+  @PostMapping(value = "/bulk", consumes = {"application/x-ndjson", "application/json", "text/plain"})
+  public BulkIngestResponse bulk(InputStream body) {
+    return ingest.ingestAuthEvents(body);
+  }
 }
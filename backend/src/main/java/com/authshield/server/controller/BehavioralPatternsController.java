@@ -1,10 +1,18 @@
 package com.authshield.server.controller;
 
+import com.authshield.server.dto.common.BulkIngestResponse;
 import com.authshield.server.dto.common.IdResponse;
 import com.authshield.server.model.BehavioralPattern;
 import com.authshield.server.repo.BehavioralPatternRepository;
+import com.authshield.server.service.BehavioralBaselineService;
+import com.authshield.server.service.BulkIngestService;
+import com.authshield.server.service.KeysetLists;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -12,15 +20,49 @@ import java.util.List;
 public class BehavioralPatternsController {
 
   private final BehavioralPatternRepository repo;
+  private final BehavioralBaselineService baselines;
+  private final BulkIngestService ingest;
+  private final KeysetLists lists;
 
-  public BehavioralPatternsController(BehavioralPatternRepository repo) { this.repo = repo; }
+  public BehavioralPatternsController(BehavioralPatternRepository repo, BehavioralBaselineService baselines,
+                                      BulkIngestService ingest, KeysetLists lists) {
+    this.repo = repo;
+    this.baselines = baselines;
+    this.ingest = ingest;
+    this.lists = lists;
+  }
 
+  /** Newest first, one keyset page at a time; summaries unless {@code ?fields=full}. See {@link KeysetLists}. */
   @GetMapping
-  public List<BehavioralPattern> list() { return repo.findAll(); }
+  public ResponseEntity<? extends List<?>> list(@RequestParam(required = false) Integer limit,
+                                                @RequestParam(required = false) String after,
+                                                @RequestParam(required = false) String fields) {
+    if (lists.full(fields)) {
+      return lists.page(limit, after, repo::findByOrderByCreatedAtDescIdDesc, repo::findPageAfter,
+        BehavioralPattern::getCreatedAt, BehavioralPattern::getId);
+    }
+    return lists.page(limit, after, repo::findSummaries, repo::findSummariesAfter,
+      BehavioralPatternRepository.Summary::getCreatedAt, BehavioralPatternRepository.Summary::getId);
+  }
+
+  @GetMapping(params = "format=ndjson")
+  public void stream(@RequestParam(required = false) String fields, HttpServletResponse response) throws IOException {
+    if (lists.full(fields)) lists.stream(response, repo::streamByOrderByCreatedAtDescIdDesc);
+    else lists.stream(response, repo::streamSummaries);
+  }
 
   @PostMapping
   public IdResponse create(@RequestBody BehavioralPattern body) {
-    BehavioralPattern saved = repo.save(body);
+    BehavioralPattern saved = baselines.save(body);
     return new IdResponse(saved.getId());
   }
+
+  /**
+   * NDJSON stream of patterns, one object per line, loaded with COPY; baselines are updated in the same
+   * transaction as each batch. See {@link BulkIngestService}.
+   */
+  @PostMapping(value = "/bulk", consumes = {"application/x-ndjson", "application/json", "text/plain"})
+  public BulkIngestResponse bulk(InputStream body) {
+    return ingest.ingestBehavioralPatterns(body);
+  }
 }
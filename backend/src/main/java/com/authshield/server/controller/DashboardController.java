@@ -1,8 +1,15 @@
 package com.authshield.server.controller;
 
 import com.authshield.server.service.DashboardService;
+import com.authshield.server.service.PartitionMaintenanceService;
+import com.authshield.server.ws.ClusterRelay;
+import com.authshield.server.ws.WebSocketHub;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -11,17 +18,54 @@ import java.util.Map;
 public class DashboardController {
 
   private final DashboardService svc;
+  private final WebSocketHub ws;
+  private final ClusterRelay cluster;
+  private final PartitionMaintenanceService partitions;
 
-  public DashboardController(DashboardService svc) {
+  public DashboardController(DashboardService svc, WebSocketHub ws, ClusterRelay cluster,
+                             PartitionMaintenanceService partitions) {
     this.svc = svc;
+    this.ws = ws;
+    this.cluster = cluster;
+    this.partitions = partitions;
   }
 
+  /** {@code range} is optional, e.g. {@code 15m}, {@code 24h}, {@code 7d} or ISO-8601; omitted means all time. */
   @GetMapping("/stats")
-  public Map<String,Object> stats() { return svc.stats(); }
+  public Map<String,Object> stats(@RequestParam(value = "range", required = false) String range) {
+    return svc.stats(parseRange(range));
+  }
 
   @GetMapping("/risk-factors")
-  public Map<String,Object> riskFactors() { return svc.riskFactors(); }
+  public Map<String,Object> riskFactors(@RequestParam(value = "range", required = false) String range) {
+    return svc.riskFactors(parseRange(range));
+  }
 
   @GetMapping("/timeline")
   public List<Map<String,Object>> timeline() { return svc.timeline(); }
+
+  /** Live-feed delivery counters: connected clients, queued and dropped frames, cross-node relay traffic. */
+  @GetMapping("/live/stats")
+  public Map<String,Object> liveStats() {
+    Map<String,Object> out = ws.stats();
+    out.put("cluster", cluster.stats());
+    return out;
+  }
+
+  /** Monthly partitions of the event tables, retention settings and the last maintenance run. */
+  @GetMapping("/partitions")
+  public Map<String,Object> partitions() {
+    return partitions.stats();
+  }
+
+  private static Duration parseRange(String range) {
+    if (range == null || range.isBlank()) return null;
+    try {
+      Duration d = DurationStyle.detectAndParse(range.trim());
+      if (d.isNegative() || d.isZero()) throw new IllegalArgumentException();
+      return d;
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid range: " + range);
+    }
+  }
 }
@@ -4,8 +4,12 @@ import com.authshield.server.dto.common.IdResponse;
 import com.authshield.server.model.DeviceProfile;
 import com.authshield.server.repo.DeviceProfileRepository;
 import com.authshield.server.service.DeviceProfileService;
+import com.authshield.server.service.KeysetLists;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -14,15 +18,31 @@ public class DevicesController {
 
   private final DeviceProfileRepository repo;
   private final DeviceProfileService deviceProfileService;
+  private final KeysetLists lists;
 
-  public DevicesController(DeviceProfileRepository repo, DeviceProfileService deviceProfileService) {
+  public DevicesController(DeviceProfileRepository repo, DeviceProfileService deviceProfileService, KeysetLists lists) {
     this.repo = repo;
     this.deviceProfileService = deviceProfileService;
+    this.lists = lists;
   }
 
+  /** Newest first, one keyset page at a time; summaries unless {@code ?fields=full}. See {@link KeysetLists}. */
   @GetMapping
-  public List<DeviceProfile> list() {
-    return repo.findAll();
+  public ResponseEntity<? extends List<?>> list(@RequestParam(required = false) Integer limit,
+                                                @RequestParam(required = false) String after,
+                                                @RequestParam(required = false) String fields) {
+    if (lists.full(fields)) {
+      return lists.page(limit, after, repo::findByOrderByLastSeenDescIdDesc, repo::findPageAfter,
+        DeviceProfile::getLastSeen, DeviceProfile::getId);
+    }
+    return lists.page(limit, after, repo::findSummaries, repo::findSummariesAfter,
+      DeviceProfileRepository.Summary::getLastSeen, DeviceProfileRepository.Summary::getId);
+  }
+
+  @GetMapping(params = "format=ndjson")
+  public void stream(@RequestParam(required = false) String fields, HttpServletResponse response) throws IOException {
+    if (lists.full(fields)) lists.stream(response, repo::streamByOrderByLastSeenDescIdDesc);
+    else lists.stream(response, repo::streamSummaries);
   }
 
   @GetMapping("/{id}")
@@ -3,18 +3,37 @@ package com.authshield.server.controller;
 import com.authshield.server.dto.common.IdResponse;
 import com.authshield.server.model.AbExperiment;
 import com.authshield.server.repo.AbExperimentRepository;
+import com.authshield.server.service.KeysetLists;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/experiments")
 public class ExperimentsController {
   private final AbExperimentRepository repo;
-  public ExperimentsController(AbExperimentRepository repo) { this.repo = repo; }
+  private final KeysetLists lists;
 
+  public ExperimentsController(AbExperimentRepository repo, KeysetLists lists) {
+    this.repo = repo;
+    this.lists = lists;
+  }
+
+  /** Newest first, one keyset page at a time; see {@link KeysetLists}. */
   @GetMapping
-  public List<AbExperiment> list() { return repo.findAll(); }
+  public ResponseEntity<List<AbExperiment>> list(@RequestParam(required = false) Integer limit,
+                                                 @RequestParam(required = false) String after) {
+    return lists.page(limit, after, repo::findByOrderByCreatedAtDescIdDesc, repo::findPageAfter,
+      AbExperiment::getCreatedAt, AbExperiment::getId);
+  }
+
+  @GetMapping(params = "format=ndjson")
+  public void stream(HttpServletResponse response) throws IOException {
+    lists.stream(response, repo::streamByOrderByCreatedAtDescIdDesc);
+  }
 
   @GetMapping("/{id}")
   public AbExperiment get(@PathVariable String id) { return repo.findById(id).orElseThrow(); }
@@ -3,21 +3,28 @@ package com.authshield.server.controller;
 import com.authshield.server.dto.geo.ImpossibleTravelRequest;
 import com.authshield.server.dto.geo.ImpossibleTravelResponse;
 import com.authshield.server.service.ImpossibleTravelService;
+import com.authshield.server.service.IpGeoResolver;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Map;
+
 /**
  * Parity port of Node endpoint:
  * POST /api/detect-impossible-travel (server.js/routes.ts)
+ *
+ * plus status/reload of the local IP geolocation database used when clients send no coordinates.
  */
 @RestController
 public class ImpossibleTravelController {
 
   private final ImpossibleTravelService svc;
+  private final IpGeoResolver ipGeo;
 
-  public ImpossibleTravelController(ImpossibleTravelService svc) {
+  public ImpossibleTravelController(ImpossibleTravelService svc, IpGeoResolver ipGeo) {
     this.svc = svc;
+    this.ipGeo = ipGeo;
   }
 
   @PostMapping("/api/detect-impossible-travel")
@@ -32,4 +39,19 @@ public class ImpossibleTravelController {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
     }
   }
+
+  @GetMapping("/api/geo/ip-db")
+  public Map<String,Object> ipDbStatus() { return ipGeo.stats(); }
+
+  @PostMapping("/api/geo/ip-db/reload")
+  public Map<String,Object> reloadIpDb() {
+    try {
+      ipGeo.reload();
+    } catch (IllegalStateException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+    } catch (Exception e) {
+      throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Reload failed: " + e.getMessage());
+    }
+    return ipGeo.stats();
+  }
 }
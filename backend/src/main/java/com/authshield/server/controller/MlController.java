@@ -2,11 +2,12 @@ package com.authshield.server.controller;
 
 import com.authshield.server.dto.ml.*;
 import com.authshield.server.model.AnomalyAlert;
-import com.authshield.server.repo.AnomalyAlertRepository;
+import com.authshield.server.service.BaselineCache;
 import com.authshield.server.service.MlScoringService;
-import com.authshield.server.service.ImpossibleTravelService;
-import com.authshield.server.dto.geo.ImpossibleTravelRequest;
-import com.authshield.server.dto.geo.ImpossibleTravelResponse;
+import com.authshield.server.service.ScoringWriteBehind;
+import com.authshield.server.service.risk.RiskEngine;
+import com.authshield.server.ws.LiveEvent;
+import com.authshield.server.ws.Severity;
 import com.authshield.server.ws.WebSocketHub;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +16,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.OffsetDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -22,90 +24,52 @@ import java.util.UUID;
 @RequestMapping("/api/ml")
 public class MlController {
   private final MlScoringService ml;
-  private final ImpossibleTravelService impossibleTravel;
-  private final AnomalyAlertRepository anomalyAlerts;
+  private final RiskEngine engine;
+  private final ScoringWriteBehind writeBehind;
   private final WebSocketHub ws;
   private final ObjectMapper mapper;
+  private final BaselineCache baselineCache;
 
   public MlController(MlScoringService ml,
-                      AnomalyAlertRepository anomalyAlerts,
-                      ImpossibleTravelService impossibleTravel,
+                      ScoringWriteBehind writeBehind,
+                      RiskEngine engine,
                       WebSocketHub ws,
-                      ObjectMapper mapper) {
+                      ObjectMapper mapper,
+                      BaselineCache baselineCache) {
     this.ml = ml;
-    this.anomalyAlerts = anomalyAlerts;
-    this.impossibleTravel = impossibleTravel;
+    this.writeBehind = writeBehind;
+    this.engine = engine;
     this.ws = ws;
     this.mapper = mapper;
+    this.baselineCache = baselineCache;
   }
 
+  /** Upper bound on items per /score/batch call. */
+  private static final int MAX_BATCH_SIZE = 1000;
+
   @PostMapping("/score")
   public ScoreResponse score(@RequestBody MlScoreRequest req) {
-    ScoreResponse out = ml.scoreOverall(req);
-
-    // Optional impossible-travel enrichment (server-side) when geo context is present
-    try {
-      if (req != null && req.userId != null &&
-          req.latitude != null && req.longitude != null &&
-          req.ipAddress != null && !req.ipAddress.isBlank()) {
-
-        ImpossibleTravelRequest it = new ImpossibleTravelRequest();
-        it.userId = req.userId;
-        it.sessionId = req.sessionId;
-        it.ipAddress = req.ipAddress;
-        it.latitude = req.latitude;
-        it.longitude = req.longitude;
-        it.city = req.city;
-        it.country = req.country;
-
-        ImpossibleTravelResponse itRes = impossibleTravel.detectAndRecord(it);
-
-        if (out.riskFactors == null) out.riskFactors = new HashMap<>();
-        if (itRes != null && itRes.factors != null) {
-          out.riskFactors.putAll(itRes.factors);
-        } else if (itRes != null) {
-          // ensure the key exists even if factors map is absent
-          out.riskFactors.put("impossible_travel", itRes.impossibleTravel);
-          out.riskFactors.put("impossibleTravel", itRes.impossibleTravel);
-        }
-
-        if (itRes != null && itRes.impossibleTravel) {
-          // Make the decision stricter (mirrors Node: impossible travel is a high-risk signal)
-          double requiredSpeed = 0.0;
-          Object rs = out.riskFactors.get("requiredSpeedKmh");
-          if (rs instanceof Number n) requiredSpeed = n.doubleValue();
-
-          out.confidenceLevel = "low";
-          if (requiredSpeed > 5000.0) {
-            out.recommendation = "block";
-            out.overallScore = Math.min(out.overallScore, 0.30);
-          } else {
-            out.recommendation = "step_up";
-            out.overallScore = Math.min(out.overallScore, 0.49);
-          }
-        }
-      }
-    } catch (Exception ignored) {}
-
-    // Broadcast live activity event (mirrors the Node realtime feed behavior)
-    try {
-      Map<String,Object> activity = new HashMap<>();
-      activity.put("id", UUID.randomUUID().toString());
-      activity.put("type", "risk_calculated");
-      activity.put("userId", req != null ? req.userId : null);
-      activity.put("riskScore", out.overallScore);
-      activity.put("confidenceLevel", out.confidenceLevel);
-      activity.put("message", "Risk score calculated" + (req != null && req.userId != null ? " for user " + req.userId : ""));
-      activity.put("timestamp", OffsetDateTime.now().toString());
-
-      Map<String,Object> envelope = new HashMap<>();
-      envelope.put("type", "activity");
-      envelope.put("activity", activity);
-
-      ws.broadcastJson(mapper.writeValueAsString(envelope));
-    } catch (Exception ignored) {}
-
-    return out;
+    return engine.score(req);
+  }
+
+  /**
+   * Micro-batch variant of /score. Lookups for the whole batch are shared (see
+   * {@link RiskEngine#scoreBatch}); impossible-travel enrichment and activity events are applied per
+   * item, in request order, exactly as on the single path.
+   */
+  @PostMapping("/score/batch")
+  public List<ScoreResponse> scoreBatch(@RequestBody List<MlScoreRequest> reqs) {
+    if (reqs == null || reqs.isEmpty()) return List.of();
+    if (reqs.size() > MAX_BATCH_SIZE) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "batch exceeds " + MAX_BATCH_SIZE + " items");
+    }
+    return engine.scoreBatch(reqs);
+  }
+
+  /** Per-stage run counts and latencies of the calculate-risk and ml/score pipelines. */
+  @GetMapping("/pipeline/stats")
+  public Map<String,Object> pipelineStats() {
+    return engine.stats();
   }
 
   @GetMapping("/baseline/{userId}")
@@ -117,6 +81,18 @@ public class MlController {
     return BaselineResponse.ok(baseline);
   }
 
+  /** Queue depth and throughput of the write-behind pipeline for scoring side effects. */
+  @GetMapping("/write-behind/stats")
+  public Map<String,Object> writeBehindStats() {
+    return writeBehind.stats();
+  }
+
+  /** Hit/miss/eviction counters for the in-memory baseline cache. */
+  @GetMapping("/baseline-cache/stats")
+  public Map<String,Object> baselineCacheStats() {
+    return baselineCache.stats();
+  }
+
   @PostMapping("/anomaly-check")
   public AnomalyResult anomalyCheck(@RequestBody Map<String,Object> req) {
     String userId = req.get("userId") != null ? String.valueOf(req.get("userId")) : null;
@@ -144,7 +120,7 @@ public class MlController {
         )));
       } catch (Exception ignored) {}
       alert.setCreatedAt(OffsetDateTime.now());
-      anomalyAlerts.save(alert);
+      writeBehind.save(alert);
 
       try {
         Map<String,Object> activity = new HashMap<>();
@@ -160,7 +136,7 @@ public class MlController {
         envelope.put("type", "activity");
         envelope.put("activity", activity);
 
-        ws.broadcastJson(mapper.writeValueAsString(envelope));
+        ws.broadcast(LiveEvent.of("activity", userId, Severity.parse(alert.getSeverity())), mapper.writeValueAsString(envelope));
       } catch (Exception ignored) {}
     }
 
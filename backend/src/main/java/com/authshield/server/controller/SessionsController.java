@@ -3,19 +3,32 @@ package com.authshield.server.controller;
 import com.authshield.server.dto.common.IdResponse;
 import com.authshield.server.model.SessionEntity;
 import com.authshield.server.repo.SessionRepository;
+import com.authshield.server.service.DashboardRollupService;
+import com.authshield.server.service.SessionActivityTracker;
+import com.authshield.server.service.SessionTokenCache;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/sessions")
 public class SessionsController {
 
   private final SessionRepository repo;
+  private final DashboardRollupService rollups;
+  private final SessionTokenCache tokenCache;
+  private final SessionActivityTracker activity;
 
-  public SessionsController(SessionRepository repo) { this.repo = repo; }
+  public SessionsController(SessionRepository repo, DashboardRollupService rollups, SessionTokenCache tokenCache,
+                            SessionActivityTracker activity) {
+    this.repo = repo;
+    this.rollups = rollups;
+    this.tokenCache = tokenCache;
+    this.activity = activity;
+  }
 
   @GetMapping
   public List<SessionEntity> list() { return repo.findTop200ByOrderByLastActivityDesc(); }
@@ -28,7 +41,14 @@ public class SessionsController {
     if (body.getExpiresAt() == null) {
       body.setExpiresAt(OffsetDateTime.now().plusHours(8));
     }
+    // Saving over an existing id may revoke, shorten or re-token the session; drop any cached copy of it.
+    // Such an update is not a new session, so only inserts are counted.
+    Optional<SessionEntity> previous = body.getId() == null ? Optional.empty() : repo.findById(body.getId());
+    String previousToken = previous.map(SessionEntity::getToken).orElse(null);
     SessionEntity saved = repo.save(body);
+    tokenCache.invalidate(previousToken);
+    tokenCache.invalidate(saved.getToken());
+    if (previous.isEmpty()) rollups.record(DashboardRollupService.SESSIONS, saved.getCreatedAt());
     return new IdResponse(saved.getId());
   }
 
@@ -43,20 +63,46 @@ public class SessionsController {
       return out;
     }
 
-    // Keep it simple and avoid Map.of generic inference issues in older compilers.
-    // token is reassigned above, so capture it into an effectively-final variable for lambdas.
-    final String tok = token;
-    SessionEntity s = repo.findAll().stream().filter(x -> tok.equals(x.getToken())).findFirst().orElse(null);
-    if (s == null || !Boolean.TRUE.equals(s.getIsActive()) || s.getExpiresAt() == null || s.getExpiresAt().isBefore(OffsetDateTime.now())) {
+    OffsetDateTime now = OffsetDateTime.now();
+    SessionEntity s = tokenCache.get(token);
+    if (s == null) {
+      s = repo.findByToken(token).orElse(null);
+      if (isValid(s, now)) tokenCache.put(token, s);
+    }
+    if (!isValid(s, now)) {
       out.put("valid", false);
       out.put("error", "Invalid or expired session");
       return out;
     }
 
-    s.setLastActivity(OffsetDateTime.now());
-    repo.save(s);
+    activity.touch(s.getId(), now);
     out.put("valid", true);
-    out.put("session", s);
+    out.put("session", withLastActivity(s, now));
     return out;
   }
+
+  /** Copy for the response: the cached entity is shared between request threads and must not be mutated. */
+  private static SessionEntity withLastActivity(SessionEntity s, OffsetDateTime lastActivity) {
+    SessionEntity c = new SessionEntity();
+    c.setId(s.getId());
+    c.setUserId(s.getUserId());
+    c.setDeviceProfileId(s.getDeviceProfileId());
+    c.setToken(s.getToken());
+    c.setConfidenceScore(s.getConfidenceScore());
+    c.setLastActivity(lastActivity);
+    c.setExpiresAt(s.getExpiresAt());
+    c.setIsActive(s.getIsActive());
+    c.setCreatedAt(s.getCreatedAt());
+    return c;
+  }
+
+  private static boolean isValid(SessionEntity s, OffsetDateTime now) {
+    return s != null && Boolean.TRUE.equals(s.getIsActive()) && s.getExpiresAt() != null && !s.getExpiresAt().isBefore(now);
+  }
+
+  @GetMapping("/token-cache/stats")
+  public Map<String,Object> tokenCacheStats() { return tokenCache.stats(); }
+
+  @GetMapping("/activity/stats")
+  public Map<String,Object> activityStats() { return activity.stats(); }
 }
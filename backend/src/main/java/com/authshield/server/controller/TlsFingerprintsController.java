@@ -3,8 +3,13 @@ package com.authshield.server.controller;
 import com.authshield.server.dto.common.IdResponse;
 import com.authshield.server.model.TlsFingerprint;
 import com.authshield.server.repo.TlsFingerprintRepository;
+import com.authshield.server.service.KeysetLists;
+import com.authshield.server.service.TlsTrustIndex;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -12,17 +17,41 @@ import java.util.List;
 public class TlsFingerprintsController {
 
   private final TlsFingerprintRepository repo;
+  private final TlsTrustIndex trustIndex;
+  private final KeysetLists lists;
 
-  public TlsFingerprintsController(TlsFingerprintRepository repo) {
+  public TlsFingerprintsController(TlsFingerprintRepository repo, TlsTrustIndex trustIndex, KeysetLists lists) {
     this.repo = repo;
+    this.trustIndex = trustIndex;
+    this.lists = lists;
   }
 
+  /** Newest first, one keyset page at a time; summaries unless {@code ?fields=full}. See {@link KeysetLists}. */
   @GetMapping
-  public List<TlsFingerprint> list() { return repo.findAll(); }
+  public ResponseEntity<? extends List<?>> list(@RequestParam(required = false) Integer limit,
+                                                @RequestParam(required = false) String after,
+                                                @RequestParam(required = false) String fields) {
+    if (lists.full(fields)) {
+      return lists.page(limit, after, repo::findByOrderByLastSeenDescIdDesc, repo::findPageAfter,
+        TlsFingerprint::getLastSeen, TlsFingerprint::getId);
+    }
+    return lists.page(limit, after, repo::findSummaries, repo::findSummariesAfter,
+      TlsFingerprintRepository.Summary::getLastSeen, TlsFingerprintRepository.Summary::getId);
+  }
+
+  @GetMapping(params = "format=ndjson")
+  public void stream(@RequestParam(required = false) String fields, HttpServletResponse response) throws IOException {
+    if (lists.full(fields)) lists.stream(response, repo::streamByOrderByLastSeenDescIdDesc);
+    else lists.stream(response, repo::streamSummaries);
+  }
+
+  @GetMapping("/{id}")
+  public TlsFingerprint get(@PathVariable String id) { return repo.findById(id).orElseThrow(); }
 
   @PostMapping
   public IdResponse create(@RequestBody TlsFingerprint body) {
     TlsFingerprint saved = repo.save(body);
+    trustIndex.record(saved);
     return new IdResponse(saved.getId());
   }
 }
@@ -4,10 +4,15 @@ import com.authshield.server.dto.auth.RegisterRequest;
 import com.authshield.server.dto.common.IdResponse;
 import com.authshield.server.model.User;
 import com.authshield.server.repo.UserRepository;
+import com.authshield.server.service.DashboardRollupService;
+import com.authshield.server.service.KeysetLists;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -16,15 +21,28 @@ public class UsersController {
 
   private final UserRepository users;
   private final PasswordEncoder encoder;
+  private final DashboardRollupService rollups;
+  private final KeysetLists lists;
 
-  public UsersController(UserRepository users, PasswordEncoder encoder) {
+  public UsersController(UserRepository users, PasswordEncoder encoder, DashboardRollupService rollups,
+                         KeysetLists lists) {
     this.users = users;
     this.encoder = encoder;
+    this.rollups = rollups;
+    this.lists = lists;
   }
 
+  /** Newest first, one keyset page at a time (see {@link KeysetLists}); never includes the password hash. */
   @GetMapping
-  public List<User> list() {
-    return users.findAll();
+  public ResponseEntity<List<UserRepository.Summary>> list(@RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) String after) {
+    return lists.page(limit, after, users::findSummaries, users::findSummariesAfter,
+      UserRepository.Summary::getCreatedAt, UserRepository.Summary::getId);
+  }
+
+  @GetMapping(params = "format=ndjson")
+  public void stream(HttpServletResponse response) throws IOException {
+    lists.stream(response, users::streamSummaries);
   }
 
   @PostMapping
@@ -34,6 +52,7 @@ public class UsersController {
     u.setPassword(encoder.encode(req.getPassword()));
     u.setEmail(req.getEmail());
     u = users.save(u);
+    rollups.record(DashboardRollupService.USERS, u.getCreatedAt());
     return new IdResponse(u.getId());
   }
 }
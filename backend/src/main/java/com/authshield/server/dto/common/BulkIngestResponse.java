@@ -0,0 +1,29 @@
+package com.authshield.server.dto.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Outcome of an NDJSON bulk load. Rejected lines are reported individually, failed COPY batches as a line range. */
+public class BulkIngestResponse {
+  public long received;
+  public long inserted;
+  public long rejected;
+  public int batches;
+  public long elapsedMs;
+  public long rowsPerSecond;
+  /** First {@code authshield.ingest.max-errors} problems; {@link #rejected} counts all of them. */
+  public List<Error> errors = new ArrayList<>();
+  public boolean errorsTruncated;
+
+  public static class Error {
+    public long fromLine;
+    public long toLine;
+    public String message;
+
+    public Error(long fromLine, long toLine, String message) {
+      this.fromLine = fromLine;
+      this.toLine = toLine;
+      this.message = message;
+    }
+  }
+}
@@ -1,13 +1,33 @@
 package com.authshield.server.dto.ml;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Per-feature baseline mean and sample standard deviation, indexed by {@link BehaviorFeature}.
+ *
+ * Scoring reads the arrays directly; the per-feature {@link BaselineMetric} getters only exist to keep the
+ * JSON shape of GET /api/ml/baseline/{userId}.
+ */
 public class BaselineProfile {
-  public BaselineMetric avgMouseSpeed;
-  public BaselineMetric avgMouseAcceleration;
-  public BaselineMetric avgKeyHoldTime;
-  public BaselineMetric avgFlightTime;
-  public BaselineMetric typingSpeed;
-  public BaselineMetric straightLineRatio;
-  public BaselineMetric curveComplexity;
+  @JsonIgnore public final double[] mean = new double[BehaviorFeature.COUNT];
+  @JsonIgnore public final double[] stdDev = new double[BehaviorFeature.COUNT];
 
   public BaselineProfile() {}
+
+  public void set(BehaviorFeature f, double mean, double stdDev) {
+    this.mean[f.ordinal()] = mean;
+    this.stdDev[f.ordinal()] = stdDev;
+  }
+
+  public BaselineMetric metric(BehaviorFeature f) {
+    return new BaselineMetric(mean[f.ordinal()], stdDev[f.ordinal()]);
+  }
+
+  public BaselineMetric getAvgMouseSpeed() { return metric(BehaviorFeature.MOUSE_SPEED); }
+  public BaselineMetric getAvgMouseAcceleration() { return metric(BehaviorFeature.MOUSE_ACCELERATION); }
+  public BaselineMetric getAvgKeyHoldTime() { return metric(BehaviorFeature.KEY_HOLD_TIME); }
+  public BaselineMetric getAvgFlightTime() { return metric(BehaviorFeature.FLIGHT_TIME); }
+  public BaselineMetric getTypingSpeed() { return metric(BehaviorFeature.TYPING_SPEED); }
+  public BaselineMetric getStraightLineRatio() { return metric(BehaviorFeature.STRAIGHT_LINE_RATIO); }
+  public BaselineMetric getCurveComplexity() { return metric(BehaviorFeature.CURVE_COMPLEXITY); }
 }
@@ -0,0 +1,47 @@
+package com.authshield.server.dto.ml;
+
+/**
+ * Behavioral features scored against a user's baseline, in scoring (and explainability) order.
+ *
+ * Each feature has the name used in baselines/anomaly factors, the key clients send it under in
+ * {@code currentBehavior}, and its weight in the behavioral anomaly score (same as ml-scoring.ts).
+ */
+public enum BehaviorFeature {
+  MOUSE_SPEED("avgMouseSpeed", "mouseVelocity", 0.20),
+  MOUSE_ACCELERATION("avgMouseAcceleration", "mouseAcceleration", 0.15),
+  KEY_HOLD_TIME("avgKeyHoldTime", "dwellTime", 0.20),
+  FLIGHT_TIME("avgFlightTime", "flightTime", 0.15),
+  TYPING_SPEED("typingSpeed", "typingSpeed", 0.20),
+  STRAIGHT_LINE_RATIO("straightLineRatio", "straightLineRatio", 0.05),
+  CURVE_COMPLEXITY("curveComplexity", "curveComplexity", 0.05);
+
+  public static final int COUNT = values().length;
+  private static final BehaviorFeature[] VALUES = values();
+
+  public final String factorName;
+  public final String clientKey;
+  public final double weight;
+
+  BehaviorFeature(String factorName, String clientKey, double weight) {
+    this.factorName = factorName;
+    this.clientKey = clientKey;
+    this.weight = weight;
+  }
+
+  public static BehaviorFeature at(int ordinal) { return VALUES[ordinal]; }
+
+  /** Feature for a {@code currentBehavior} key, or null for keys we don't score. */
+  public static BehaviorFeature byClientKey(String key) {
+    if (key == null) return null;
+    return switch (key) {
+      case "mouseVelocity" -> MOUSE_SPEED;
+      case "mouseAcceleration" -> MOUSE_ACCELERATION;
+      case "dwellTime" -> KEY_HOLD_TIME;
+      case "flightTime" -> FLIGHT_TIME;
+      case "typingSpeed" -> TYPING_SPEED;
+      case "straightLineRatio" -> STRAIGHT_LINE_RATIO;
+      case "curveComplexity" -> CURVE_COMPLEXITY;
+      default -> null;
+    };
+  }
+}
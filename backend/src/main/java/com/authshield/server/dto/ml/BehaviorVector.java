@@ -0,0 +1,94 @@
+package com.authshield.server.dto.ml;
+
+import com.authshield.server.model.BehavioralPattern;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Current behavioral features as a fixed {@link BehaviorFeature}-indexed {@code double[]} plus a presence bitmask.
+ *
+ * A feature is "present" when the client sent a non-null value for it; a present value that isn't numeric is
+ * stored as NaN. That split mirrors the original map-based scorer, which counted the weight of any supplied
+ * key but only produced a factor for values that parsed.
+ */
+@JsonDeserialize(using = BehaviorVector.Deserializer.class)
+public final class BehaviorVector {
+
+  private final double[] values = new double[BehaviorFeature.COUNT];
+  private int present;
+
+  public boolean has(BehaviorFeature f) { return has(f.ordinal()); }
+  public boolean has(int i) { return (present & (1 << i)) != 0; }
+  public double get(BehaviorFeature f) { return values[f.ordinal()]; }
+  public double get(int i) { return values[i]; }
+  public boolean isEmpty() { return present == 0; }
+
+  public BehaviorVector set(BehaviorFeature f, double v) {
+    values[f.ordinal()] = v;
+    present |= 1 << f.ordinal();
+    return this;
+  }
+
+  /** Converts a loosely typed {@code currentBehavior} map (keys as sent by the client). */
+  public static BehaviorVector fromMap(Map<String, ?> m) {
+    BehaviorVector v = new BehaviorVector();
+    if (m == null) return v;
+    for (BehaviorFeature f : BehaviorFeature.values()) {
+      Object o = m.get(f.clientKey);
+      if (o != null) v.set(f, toDouble(o));
+    }
+    return v;
+  }
+
+  public static BehaviorVector fromPattern(BehavioralPattern bp) {
+    BehaviorVector v = new BehaviorVector();
+    if (bp.getAvgMouseSpeed() != null) v.set(BehaviorFeature.MOUSE_SPEED, bp.getAvgMouseSpeed());
+    if (bp.getAvgMouseAcceleration() != null) v.set(BehaviorFeature.MOUSE_ACCELERATION, bp.getAvgMouseAcceleration());
+    if (bp.getAvgKeyHoldTime() != null) v.set(BehaviorFeature.KEY_HOLD_TIME, bp.getAvgKeyHoldTime());
+    if (bp.getAvgFlightTime() != null) v.set(BehaviorFeature.FLIGHT_TIME, bp.getAvgFlightTime());
+    if (bp.getTypingSpeed() != null) v.set(BehaviorFeature.TYPING_SPEED, bp.getTypingSpeed());
+    if (bp.getStraightLineRatio() != null) v.set(BehaviorFeature.STRAIGHT_LINE_RATIO, bp.getStraightLineRatio());
+    if (bp.getCurveComplexity() != null) v.set(BehaviorFeature.CURVE_COMPLEXITY, bp.getCurveComplexity());
+    return v;
+  }
+
+  private static double toDouble(Object o) {
+    if (o instanceof Number n) return n.doubleValue();
+    try { return Double.parseDouble(String.valueOf(o)); } catch (Exception e) { return Double.NaN; }
+  }
+
+  /** Reads {@code currentBehavior} straight off the token stream, without building an intermediate map. */
+  public static final class Deserializer extends JsonDeserializer<BehaviorVector> {
+    @Override
+    public BehaviorVector deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      BehaviorVector v = new BehaviorVector();
+      if (p.currentToken() != JsonToken.START_OBJECT) {
+        p.skipChildren();
+        return v;
+      }
+      while (p.nextToken() == JsonToken.FIELD_NAME) {
+        BehaviorFeature f = BehaviorFeature.byClientKey(p.currentName());
+        JsonToken t = p.nextToken();
+        if (f == null || t == JsonToken.VALUE_NULL) {
+          p.skipChildren();
+          continue;
+        }
+        if (t == JsonToken.VALUE_NUMBER_INT || t == JsonToken.VALUE_NUMBER_FLOAT) {
+          v.set(f, p.getDoubleValue());
+        } else if (t == JsonToken.VALUE_STRING) {
+          v.set(f, toDouble(p.getText()));
+        } else {
+          p.skipChildren();
+          v.set(f, Double.NaN);
+        }
+      }
+      return v;
+    }
+  }
+}
@@ -1,7 +1,5 @@
 package com.authshield.server.dto.ml;
 
-import java.util.Map;
-
 /**
  * Flexible request payload for /api/ml/score.
  *
@@ -23,5 +21,5 @@ public class MlScoreRequest {
   public String country;
 
   /** Behavioral features captured by the client (mouseVelocity, dwellTime, etc.) */
-  public Map<String, Object> currentBehavior;
+  public BehaviorVector currentBehavior;
 }
@@ -8,7 +8,7 @@ public class ScoreResponse {
   public String confidenceLevel;
   public String recommendation;
 
-  /** Component trust scores (0..1): device, tls, behavioral */
+  /** Component trust scores (0..1): device, tls, behavioral (null when the behavioral stage was skipped) */
   public Map<String, Double> components = new HashMap<>();
 
   /** Weights used to combine components: device, tls, behavioral */
@@ -17,6 +17,6 @@ public class ScoreResponse {
   // Backwards-compatible fields used by earlier UI code paths
   public double deviceScore;
   public double tlsScore;
-  public double behavioralScore;
+  public Double behavioralScore;
   public Map<String,Object> riskFactors;
 }
@@ -32,7 +32,8 @@ public class AnomalyAlert {
   @Column(name="resolved_at")
   private OffsetDateTime resolvedAt;
 
-  @PrePersist void prePersist() {
+  /** Also applied by {@link com.authshield.server.service.ScoringWriteBehind} before its JDBC inserts. */
+  @PrePersist public void prePersist() {
     if (id == null) id = java.util.UUID.randomUUID().toString();
     if (severity == null) severity = "medium";
     if (resolved == null) resolved = false;
@@ -53,7 +53,8 @@ public class AuthenticationEvent {
   @Column(name="created_at", nullable=false)
   private OffsetDateTime createdAt;
 
-  @PrePersist void prePersist() {
+  /** Also applied by {@link com.authshield.server.service.BulkIngestService} before COPY. */
+  @PrePersist public void prePersist() {
     if (id == null) id = java.util.UUID.randomUUID().toString();
     if (stepUpRequired == null) stepUpRequired = false;
     if (success == null) success = false;
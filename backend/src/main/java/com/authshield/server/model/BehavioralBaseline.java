@@ -0,0 +1,142 @@
+package com.authshield.server.model;
+
+import com.authshield.server.dto.ml.BaselineProfile;
+import com.authshield.server.dto.ml.BehaviorFeature;
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+
+/**
+ * Per-user behavioral baseline, maintained incrementally as behavioral patterns are saved.
+ *
+ * Scoring reads this row by primary key instead of re-aggregating every pattern the user has produced.
+ */
+@Entity
+@Table(name="behavioral_baselines")
+public class BehavioralBaseline {
+  @Id @Column(name="user_id", length=64)
+  private String userId;
+
+  @Column(name="pattern_count", nullable=false)
+  private long patternCount;
+
+  @Embedded
+  @AttributeOverrides({
+    @AttributeOverride(name="n", column=@Column(name="mouse_speed_n", nullable=false)),
+    @AttributeOverride(name="mean", column=@Column(name="mouse_speed_mean", nullable=false)),
+    @AttributeOverride(name="m2", column=@Column(name="mouse_speed_m2", nullable=false))
+  })
+  private RunningStat mouseSpeed = new RunningStat();
+
+  @Embedded
+  @AttributeOverrides({
+    @AttributeOverride(name="n", column=@Column(name="mouse_accel_n", nullable=false)),
+    @AttributeOverride(name="mean", column=@Column(name="mouse_accel_mean", nullable=false)),
+    @AttributeOverride(name="m2", column=@Column(name="mouse_accel_m2", nullable=false))
+  })
+  private RunningStat mouseAcceleration = new RunningStat();
+
+  @Embedded
+  @AttributeOverrides({
+    @AttributeOverride(name="n", column=@Column(name="key_hold_n", nullable=false)),
+    @AttributeOverride(name="mean", column=@Column(name="key_hold_mean", nullable=false)),
+    @AttributeOverride(name="m2", column=@Column(name="key_hold_m2", nullable=false))
+  })
+  private RunningStat keyHoldTime = new RunningStat();
+
+  @Embedded
+  @AttributeOverrides({
+    @AttributeOverride(name="n", column=@Column(name="flight_time_n", nullable=false)),
+    @AttributeOverride(name="mean", column=@Column(name="flight_time_mean", nullable=false)),
+    @AttributeOverride(name="m2", column=@Column(name="flight_time_m2", nullable=false))
+  })
+  private RunningStat flightTime = new RunningStat();
+
+  @Embedded
+  @AttributeOverrides({
+    @AttributeOverride(name="n", column=@Column(name="typing_speed_n", nullable=false)),
+    @AttributeOverride(name="mean", column=@Column(name="typing_speed_mean", nullable=false)),
+    @AttributeOverride(name="m2", column=@Column(name="typing_speed_m2", nullable=false))
+  })
+  private RunningStat typingSpeed = new RunningStat();
+
+  @Embedded
+  @AttributeOverrides({
+    @AttributeOverride(name="n", column=@Column(name="straight_line_n", nullable=false)),
+    @AttributeOverride(name="mean", column=@Column(name="straight_line_mean", nullable=false)),
+    @AttributeOverride(name="m2", column=@Column(name="straight_line_m2", nullable=false))
+  })
+  private RunningStat straightLineRatio = new RunningStat();
+
+  @Embedded
+  @AttributeOverrides({
+    @AttributeOverride(name="n", column=@Column(name="curve_complexity_n", nullable=false)),
+    @AttributeOverride(name="mean", column=@Column(name="curve_complexity_mean", nullable=false)),
+    @AttributeOverride(name="m2", column=@Column(name="curve_complexity_m2", nullable=false))
+  })
+  private RunningStat curveComplexity = new RunningStat();
+
+  @Column(name="updated_at", nullable=false)
+  private OffsetDateTime updatedAt;
+
+  @PrePersist @PreUpdate void touch() {
+    updatedAt = OffsetDateTime.now();
+  }
+
+  /** Folds a single pattern into the running statistics. */
+  public void accumulate(BehavioralPattern p) {
+    patternCount++;
+    mouseSpeed.add(p.getAvgMouseSpeed());
+    mouseAcceleration.add(p.getAvgMouseAcceleration());
+    keyHoldTime.add(p.getAvgKeyHoldTime());
+    flightTime.add(p.getAvgFlightTime());
+    typingSpeed.add(p.getTypingSpeed());
+    straightLineRatio.add(p.getStraightLineRatio());
+    curveComplexity.add(p.getCurveComplexity());
+  }
+
+  public void reset() {
+    patternCount = 0;
+    mouseSpeed.reset();
+    mouseAcceleration.reset();
+    keyHoldTime.reset();
+    flightTime.reset();
+    typingSpeed.reset();
+    straightLineRatio.reset();
+    curveComplexity.reset();
+  }
+
+  public BaselineProfile toProfile() {
+    BaselineProfile out = new BaselineProfile();
+    for (BehaviorFeature f : BehaviorFeature.values()) {
+      RunningStat st = stat(f);
+      out.set(f, st.getN() == 0 ? 0.0 : st.getMean(), st.sampleStdDev());
+    }
+    return out;
+  }
+
+  public RunningStat stat(BehaviorFeature f) {
+    return switch (f) {
+      case MOUSE_SPEED -> mouseSpeed;
+      case MOUSE_ACCELERATION -> mouseAcceleration;
+      case KEY_HOLD_TIME -> keyHoldTime;
+      case FLIGHT_TIME -> flightTime;
+      case TYPING_SPEED -> typingSpeed;
+      case STRAIGHT_LINE_RATIO -> straightLineRatio;
+      case CURVE_COMPLEXITY -> curveComplexity;
+    };
+  }
+
+  public String getUserId(){return userId;}
+  public void setUserId(String userId){this.userId=userId;}
+  public long getPatternCount(){return patternCount;}
+  public void setPatternCount(long patternCount){this.patternCount=patternCount;}
+  public RunningStat getMouseSpeed(){return mouseSpeed;}
+  public RunningStat getMouseAcceleration(){return mouseAcceleration;}
+  public RunningStat getKeyHoldTime(){return keyHoldTime;}
+  public RunningStat getFlightTime(){return flightTime;}
+  public RunningStat getTypingSpeed(){return typingSpeed;}
+  public RunningStat getStraightLineRatio(){return straightLineRatio;}
+  public RunningStat getCurveComplexity(){return curveComplexity;}
+  public OffsetDateTime getUpdatedAt(){return updatedAt;}
+  public void setUpdatedAt(OffsetDateTime updatedAt){this.updatedAt=updatedAt;}
+}
@@ -68,8 +68,9 @@ public class BehavioralPattern {
   @Column(name="created_at", nullable=false)
   private OffsetDateTime createdAt;
 
+  /** Also applied by {@link com.authshield.server.service.BulkIngestService} before COPY. */
   @PrePersist
-  void prePersist() {
+  public void prePersist() {
     if (id == null) id = java.util.UUID.randomUUID().toString();
     if (sampleCount == null) sampleCount = 0;
     if (confidenceScore == null) confidenceScore = 0.0;
@@ -44,7 +44,8 @@ public class Geolocation {
   @Column(name="created_at", nullable=false)
   private OffsetDateTime createdAt;
 
-  @PrePersist void prePersist() {
+  /** Also applied by {@link com.authshield.server.service.ScoringWriteBehind} before its JDBC inserts. */
+  @PrePersist public void prePersist() {
     if (id == null) id = java.util.UUID.randomUUID().toString();
     if (createdAt == null) createdAt = OffsetDateTime.now();
     if (isProxy == null) isProxy = false;
@@ -21,7 +21,7 @@ public class RiskScore {
   @Column(name="tls_score", nullable=false)
   private Double tlsScore;
 
-  @Column(name="behavioral_score", nullable=false)
+  @Column(name="behavioral_score")
   private Double behavioralScore;
 
   @Column(name="overall_score", nullable=false)
@@ -36,7 +36,8 @@ public class RiskScore {
   @Column(name="created_at", nullable=false)
   private OffsetDateTime createdAt;
 
-  @PrePersist void prePersist() {
+  /** Also applied by {@link com.authshield.server.service.ScoringWriteBehind} before its JDBC inserts. */
+  @PrePersist public void prePersist() {
     if (id == null) id = java.util.UUID.randomUUID().toString();
     if (threshold == null) threshold = 0.7;
     if (passed == null) passed = false;
@@ -0,0 +1,41 @@
+package com.authshield.server.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Running count/mean/M2 for a single feature (Welford's online algorithm).
+ *
+ * Column names are supplied by the owning entity via {@code @AttributeOverride}.
+ */
+@Embeddable
+public class RunningStat {
+  private long n;
+  private double mean;
+  private double m2;
+
+  public void add(Double value) {
+    if (value == null) return;
+    n++;
+    double delta = value - mean;
+    mean += delta / n;
+    m2 += delta * (value - mean);
+  }
+
+  public void reset() {
+    n = 0;
+    mean = 0.0;
+    m2 = 0.0;
+  }
+
+  /** Sample standard deviation, matching the previous full-history computation. */
+  public double sampleStdDev() {
+    return n < 2 ? 0.0 : Math.sqrt(m2 / (n - 1.0));
+  }
+
+  public long getN(){return n;}
+  public void setN(long n){this.n=n;}
+  public double getMean(){return mean;}
+  public void setMean(double mean){this.mean=mean;}
+  public double getM2(){return m2;}
+  public void setM2(double m2){this.m2=m2;}
+}
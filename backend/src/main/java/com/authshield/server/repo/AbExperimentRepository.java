@@ -1,6 +1,27 @@
 package com.authshield.server.repo;
 
 import com.authshield.server.model.AbExperiment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface AbExperimentRepository extends JpaRepository<AbExperiment, String> {}
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface AbExperimentRepository extends JpaRepository<AbExperiment, String> {
+  /** Keyset pages for the list endpoint, newest first; see {@link com.authshield.server.service.KeysetLists}. */
+  List<AbExperiment> findByOrderByCreatedAtDescIdDesc(Pageable page);
+
+  @Query("select e from AbExperiment e where e.createdAt <= :at and (e.createdAt < :at or e.id < :id) " +
+         "order by e.createdAt desc, e.id desc")
+  List<AbExperiment> findPageAfter(@Param("at") OffsetDateTime at, @Param("id") String id, Pageable page);
+
+  /** Whole table in list order for NDJSON export; must run inside a transaction. */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<AbExperiment> streamByOrderByCreatedAtDescIdDesc();
+}
@@ -0,0 +1,24 @@
+package com.authshield.server.repo;
+
+import com.authshield.server.model.BehavioralBaseline;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface BehavioralBaselineRepository extends JpaRepository<BehavioralBaseline, String> {
+
+  /** Creates an empty baseline row if the user has none yet (safe under concurrent first inserts). */
+  @Modifying
+  @Query(value = "insert into behavioral_baselines (user_id) values (:userId) on conflict (user_id) do nothing", nativeQuery = true)
+  int ensureExists(@Param("userId") String userId);
+
+  /** Row-locks the baseline so concurrent pattern inserts for the same user serialize their updates. */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select b from BehavioralBaseline b where b.userId = :userId")
+  Optional<BehavioralBaseline> findForUpdate(@Param("userId") String userId);
+}
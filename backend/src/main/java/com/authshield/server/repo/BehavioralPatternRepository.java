@@ -1,10 +1,73 @@
 package com.authshield.server.repo;
 
 import com.authshield.server.model.BehavioralPattern;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BehavioralPatternRepository extends JpaRepository<BehavioralPattern, String> {
   List<BehavioralPattern> findByUserIdOrderByCreatedAtDesc(String userId);
+
+  /** Keyset pages for the list endpoint, newest first; see {@link com.authshield.server.service.KeysetLists}. */
+  List<BehavioralPattern> findByOrderByCreatedAtDescIdDesc(Pageable page);
+
+  @Query("select p from BehavioralPattern p where p.createdAt <= :at and (p.createdAt < :at or p.id < :id) " +
+         "order by p.createdAt desc, p.id desc")
+  List<BehavioralPattern> findPageAfter(@Param("at") OffsetDateTime at, @Param("id") String id, Pageable page);
+
+  /** Whole table in list order for NDJSON export; must run inside a transaction. */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<BehavioralPattern> streamByOrderByCreatedAtDescIdDesc();
+
+  /** List view: the aggregate features without raw_data. */
+  interface Summary {
+    String getId();
+    String getUserId();
+    String getDeviceProfileId();
+    String getSessionId();
+    Double getAvgMouseSpeed();
+    Double getMouseSpeedVariance();
+    Double getAvgMouseAcceleration();
+    Double getStraightLineRatio();
+    Double getCurveComplexity();
+    Double getAvgKeyHoldTime();
+    Double getKeyHoldVariance();
+    Double getAvgFlightTime();
+    Double getFlightTimeVariance();
+    Double getTypingSpeed();
+    Double getErrorRate();
+    Integer getSampleCount();
+    Double getConfidenceScore();
+    OffsetDateTime getCreatedAt();
+  }
+
+  String SUMMARY_SELECT = "select " +
+    "p.id as id, p.userId as userId, p.deviceProfileId as deviceProfileId, p.sessionId as sessionId, " +
+    "p.avgMouseSpeed as avgMouseSpeed, p.mouseSpeedVariance as mouseSpeedVariance, " +
+    "p.avgMouseAcceleration as avgMouseAcceleration, p.straightLineRatio as straightLineRatio, " +
+    "p.curveComplexity as curveComplexity, p.avgKeyHoldTime as avgKeyHoldTime, " +
+    "p.keyHoldVariance as keyHoldVariance, p.avgFlightTime as avgFlightTime, " +
+    "p.flightTimeVariance as flightTimeVariance, p.typingSpeed as typingSpeed, " +
+    "p.errorRate as errorRate, p.sampleCount as sampleCount, p.confidenceScore as confidenceScore, " +
+    "p.createdAt as createdAt " +
+    "from BehavioralPattern p ";
+
+  @Query(SUMMARY_SELECT + "order by p.createdAt desc, p.id desc")
+  List<Summary> findSummaries(Pageable page);
+
+  @Query(SUMMARY_SELECT + "where p.createdAt <= :at and (p.createdAt < :at or p.id < :id) " +
+         "order by p.createdAt desc, p.id desc")
+  List<Summary> findSummariesAfter(@Param("at") OffsetDateTime at, @Param("id") String id, Pageable page);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  @Query(SUMMARY_SELECT + "order by p.createdAt desc, p.id desc")
+  Stream<Summary> streamSummaries();
 }
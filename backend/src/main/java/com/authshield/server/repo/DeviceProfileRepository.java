@@ -1,12 +1,78 @@
 package com.authshield.server.repo;
 
 import com.authshield.server.model.DeviceProfile;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface DeviceProfileRepository extends JpaRepository<DeviceProfile, String> {
   Optional<DeviceProfile> findByFingerprint(String fingerprint);
   List<DeviceProfile> findByUserIdOrderByLastSeenDesc(String userId);
+
+  /** Keyset pages for the list endpoint, newest first; see {@link com.authshield.server.service.KeysetLists}. */
+  List<DeviceProfile> findByOrderByLastSeenDescIdDesc(Pageable page);
+
+  @Query("select d from DeviceProfile d where d.lastSeen <= :at and (d.lastSeen < :at or d.id < :id) " +
+         "order by d.lastSeen desc, d.id desc")
+  List<DeviceProfile> findPageAfter(@Param("at") OffsetDateTime at, @Param("id") String id, Pageable page);
+
+  /** Whole table in list order for NDJSON export; must run inside a transaction. */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<DeviceProfile> streamByOrderByLastSeenDescIdDesc();
+
+  /** List view: every column except the fonts/plugins arrays. */
+  interface Summary {
+    String getId();
+    String getUserId();
+    String getFingerprint();
+    String getUserAgent();
+    String getPlatform();
+    String getLanguage();
+    String getTimezone();
+    String getScreenResolution();
+    Integer getColorDepth();
+    Double getPixelRatio();
+    Integer getHardwareConcurrency();
+    Integer getDeviceMemory();
+    Boolean getTouchSupport();
+    String getWebglVendor();
+    String getWebglRenderer();
+    String getCanvasFingerprint();
+    String getAudioFingerprint();
+    Double getTrustScore();
+    Integer getSeenCount();
+    OffsetDateTime getFirstSeen();
+    OffsetDateTime getLastSeen();
+  }
+
+  String SUMMARY_SELECT = "select " +
+    "d.id as id, d.userId as userId, d.fingerprint as fingerprint, d.userAgent as userAgent, " +
+    "d.platform as platform, d.language as language, d.timezone as timezone, " +
+    "d.screenResolution as screenResolution, d.colorDepth as colorDepth, d.pixelRatio as pixelRatio, " +
+    "d.hardwareConcurrency as hardwareConcurrency, d.deviceMemory as deviceMemory, " +
+    "d.touchSupport as touchSupport, d.webglVendor as webglVendor, d.webglRenderer as webglRenderer, " +
+    "d.canvasFingerprint as canvasFingerprint, d.audioFingerprint as audioFingerprint, " +
+    "d.trustScore as trustScore, d.seenCount as seenCount, d.firstSeen as firstSeen, " +
+    "d.lastSeen as lastSeen " +
+    "from DeviceProfile d ";
+
+  @Query(SUMMARY_SELECT + "order by d.lastSeen desc, d.id desc")
+  List<Summary> findSummaries(Pageable page);
+
+  @Query(SUMMARY_SELECT + "where d.lastSeen <= :at and (d.lastSeen < :at or d.id < :id) " +
+         "order by d.lastSeen desc, d.id desc")
+  List<Summary> findSummariesAfter(@Param("at") OffsetDateTime at, @Param("id") String id, Pageable page);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  @Query(SUMMARY_SELECT + "order by d.lastSeen desc, d.id desc")
+  Stream<Summary> streamSummaries();
 }
@@ -4,8 +4,12 @@ import com.authshield.server.model.SessionEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface SessionRepository extends JpaRepository<SessionEntity, String> {
   List<SessionEntity> findTop200ByOrderByLastActivityDesc();
   List<SessionEntity> findByUserIdOrderByLastActivityDesc(String userId);
+
+  /** Served by the unique index on sessions.token. */
+  Optional<SessionEntity> findByToken(String token);
 }
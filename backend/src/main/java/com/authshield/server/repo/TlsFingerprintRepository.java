@@ -1,15 +1,82 @@
 package com.authshield.server.repo;
 
 import com.authshield.server.model.TlsFingerprint;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TlsFingerprintRepository extends JpaRepository<TlsFingerprint, String> {
   List<TlsFingerprint> findByUserIdOrderByLastSeenDesc(String userId);
-  /**
-   * Used for rarity calculations. The TLS fingerprints table tracks first/last seen rather than a
-   * separate createdAt column, so order by lastSeen.
-   */
-  List<TlsFingerprint> findTop500ByOrderByLastSeenDesc();
+
+  /** Slim view of the columns needed for trust lookups (no text[] columns). */
+  interface TrustView {
+    String getId();
+    String getJa3Hash();
+    String getJa4Hash();
+    Double getTrustScore();
+    OffsetDateTime getLastSeen();
+  }
+
+  @Query("select f.id as id, f.ja3Hash as ja3Hash, f.ja4Hash as ja4Hash, f.trustScore as trustScore, f.lastSeen as lastSeen " +
+         "from TlsFingerprint f order by f.lastSeen desc")
+  List<TrustView> findTrustViews(Pageable page);
+
+  @Query("select f.id as id, f.ja3Hash as ja3Hash, f.ja4Hash as ja4Hash, f.trustScore as trustScore, f.lastSeen as lastSeen " +
+         "from TlsFingerprint f where f.ja3Hash = :hash or f.ja4Hash = :hash order by f.lastSeen desc")
+  List<TrustView> findTrustViewsByHash(@Param("hash") String hash, Pageable page);
+
+  @Query("select f.id as id, f.ja3Hash as ja3Hash, f.ja4Hash as ja4Hash, f.trustScore as trustScore, f.lastSeen as lastSeen " +
+         "from TlsFingerprint f where f.id in :ids")
+  List<TrustView> findTrustViewsByIdIn(@Param("ids") Collection<String> ids);
+
+  /** Keyset pages for the list endpoint, newest first; see {@link com.authshield.server.service.KeysetLists}. */
+  List<TlsFingerprint> findByOrderByLastSeenDescIdDesc(Pageable page);
+
+  @Query("select f from TlsFingerprint f where f.lastSeen <= :at and (f.lastSeen < :at or f.id < :id) " +
+         "order by f.lastSeen desc, f.id desc")
+  List<TlsFingerprint> findPageAfter(@Param("at") OffsetDateTime at, @Param("id") String id, Pageable page);
+
+  /** Whole table in list order for NDJSON export; must run inside a transaction. */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<TlsFingerprint> streamByOrderByLastSeenDescIdDesc();
+
+  /** List view: hashes and trust, without the full JA3/JA4 strings and the text[] columns. */
+  interface Summary {
+    String getId();
+    String getUserId();
+    String getDeviceProfileId();
+    String getJa3Hash();
+    String getJa4Hash();
+    String getTlsVersion();
+    Double getTrustScore();
+    Integer getSeenCount();
+    OffsetDateTime getFirstSeen();
+    OffsetDateTime getLastSeen();
+  }
+
+  String SUMMARY_SELECT = "select " +
+    "f.id as id, f.userId as userId, f.deviceProfileId as deviceProfileId, f.ja3Hash as ja3Hash, " +
+    "f.ja4Hash as ja4Hash, f.tlsVersion as tlsVersion, f.trustScore as trustScore, " +
+    "f.seenCount as seenCount, f.firstSeen as firstSeen, f.lastSeen as lastSeen " +
+    "from TlsFingerprint f ";
+
+  @Query(SUMMARY_SELECT + "order by f.lastSeen desc, f.id desc")
+  List<Summary> findSummaries(Pageable page);
+
+  @Query(SUMMARY_SELECT + "where f.lastSeen <= :at and (f.lastSeen < :at or f.id < :id) " +
+         "order by f.lastSeen desc, f.id desc")
+  List<Summary> findSummariesAfter(@Param("at") OffsetDateTime at, @Param("id") String id, Pageable page);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  @Query(SUMMARY_SELECT + "order by f.lastSeen desc, f.id desc")
+  Stream<Summary> streamSummaries();
 }
@@ -1,10 +1,42 @@
 package com.authshield.server.repo;
 
 import com.authshield.server.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, String> {
   Optional<User> findByUsername(String username);
+
+  /** The only shape users are listed in; the password hash is never selected. */
+  interface Summary {
+    String getId();
+    String getUsername();
+    String getEmail();
+    OffsetDateTime getCreatedAt();
+  }
+
+  String SUMMARY_SELECT = "select " +
+    "u.id as id, u.username as username, u.email as email, u.createdAt as createdAt " +
+    "from User u ";
+
+  @Query(SUMMARY_SELECT + "order by u.createdAt desc, u.id desc")
+  List<Summary> findSummaries(Pageable page);
+
+  @Query(SUMMARY_SELECT + "where u.createdAt <= :at and (u.createdAt < :at or u.id < :id) " +
+         "order by u.createdAt desc, u.id desc")
+  List<Summary> findSummariesAfter(@Param("at") OffsetDateTime at, @Param("id") String id, Pageable page);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  @Query(SUMMARY_SELECT + "order by u.createdAt desc, u.id desc")
+  Stream<Summary> streamSummaries();
 }
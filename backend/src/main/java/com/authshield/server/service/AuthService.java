@@ -15,11 +15,14 @@ public class AuthService {
   private final UserRepository users;
   private final PasswordEncoder encoder;
   private final AuthenticationManager authManager;
+  private final DashboardRollupService rollups;
 
-  public AuthService(UserRepository users, PasswordEncoder encoder, AuthenticationManager authManager) {
+  public AuthService(UserRepository users, PasswordEncoder encoder, AuthenticationManager authManager,
+                     DashboardRollupService rollups) {
     this.users = users;
     this.encoder = encoder;
     this.authManager = authManager;
+    this.rollups = rollups;
   }
 
   public User register(RegisterRequest req) {
@@ -30,7 +33,9 @@ public class AuthService {
     u.setUsername(req.getUsername());
     u.setPassword(encoder.encode(req.getPassword()));
     u.setEmail(req.getEmail());
-    return users.save(u);
+    User saved = users.save(u);
+    rollups.record(DashboardRollupService.USERS, saved.getCreatedAt());
+    return saved;
   }
 
   public void login(String username, String password) {
@@ -0,0 +1,97 @@
+package com.authshield.server.service;
+
+import com.authshield.server.dto.ml.BaselineProfile;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Size-bounded, TTL-evicting cache of behavioral baselines keyed by userId.
+ *
+ * "No baseline yet" is cached too (as an empty Optional) so new users don't hit the DB on every request.
+ * Entries are invalidated when a new pattern for the user commits.
+ */
+@Component
+public class BaselineCache {
+
+  private final Cache<String, Optional<BaselineProfile>> cache;
+
+  public BaselineCache(@Value("${authshield.ml.baseline-cache.max-size:10000}") long maxSize,
+                       @Value("${authshield.ml.baseline-cache.ttl:5m}") Duration ttl) {
+    this.cache = Caffeine.newBuilder()
+      .maximumSize(maxSize)
+      .expireAfterWrite(ttl)
+      .recordStats()
+      .build();
+  }
+
+  public BaselineProfile get(String userId, Function<String, BaselineProfile> loader) {
+    if (userId == null || userId.isBlank()) return null;
+    return cache.get(userId, id -> Optional.ofNullable(loader.apply(id))).orElse(null);
+  }
+
+  /**
+   * Bulk lookup: cache misses are loaded with a single call to {@code bulkLoader}. Users the loader doesn't
+   * return are cached as having no baseline. The result only contains users that have one.
+   */
+  public Map<String, BaselineProfile> getAll(Collection<String> userIds,
+                                             Function<Set<String>, Map<String, BaselineProfile>> bulkLoader) {
+    Map<String, Optional<BaselineProfile>> hits = cache.getAll(userIds, missing -> {
+      Set<String> keys = new HashSet<>();
+      missing.forEach(keys::add);
+      Map<String, BaselineProfile> loaded = bulkLoader.apply(keys);
+      Map<String, Optional<BaselineProfile>> wrapped = new HashMap<>();
+      for (String k : keys) wrapped.put(k, Optional.ofNullable(loaded.get(k)));
+      return wrapped;
+    });
+    Map<String, BaselineProfile> out = new HashMap<>();
+    hits.forEach((k, v) -> v.ifPresent(b -> out.put(k, b)));
+    return out;
+  }
+
+  public void invalidate(String userId) {
+    if (userId != null) cache.invalidate(userId);
+  }
+
+  /**
+   * Invalidates once the surrounding transaction commits, so a concurrent reader can't re-cache the
+   * pre-commit baseline. Without an active transaction this invalidates immediately.
+   */
+  public void invalidateAfterCommit(String userId) {
+    if (userId == null) return;
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      invalidate(userId);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        invalidate(userId);
+      }
+    });
+  }
+
+  public Map<String,Object> stats() {
+    CacheStats s = cache.stats();
+    Map<String,Object> out = new HashMap<>();
+    out.put("size", cache.estimatedSize());
+    out.put("hits", s.hitCount());
+    out.put("misses", s.missCount());
+    out.put("evictions", s.evictionCount());
+    out.put("hitRate", s.hitRate());
+    return out;
+  }
+}
@@ -0,0 +1,127 @@
+package com.authshield.server.service;
+
+import com.authshield.server.dto.ml.BaselineProfile;
+import com.authshield.server.model.BehavioralBaseline;
+import com.authshield.server.model.BehavioralPattern;
+import com.authshield.server.repo.BehavioralBaselineRepository;
+import com.authshield.server.repo.BehavioralPatternRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Owns the write path for behavioral patterns so the per-user baseline stays in step with history.
+ *
+ * New patterns are folded into the running statistics in O(1). Re-saving an existing pattern id
+ * (an update rather than an insert) rebuilds the affected baselines from history, since Welford
+ * updates can't cleanly retract the old values.
+ */
+@Service
+public class BehavioralBaselineService {
+
+  /** Same minimum as the original Node implementation. */
+  public static final int MIN_PATTERNS = 3;
+
+  private final BehavioralBaselineRepository baselines;
+  private final BehavioralPatternRepository patterns;
+  private final BaselineCache cache;
+
+  public BehavioralBaselineService(BehavioralBaselineRepository baselines,
+                                   BehavioralPatternRepository patterns,
+                                   BaselineCache cache) {
+    this.baselines = baselines;
+    this.patterns = patterns;
+    this.cache = cache;
+  }
+
+  @Transactional
+  public BehavioralPattern save(BehavioralPattern body) {
+    String previousUserId = null;
+    boolean existed = false;
+    if (body.getId() != null) {
+      var existing = patterns.findById(body.getId());
+      existed = existing.isPresent();
+      previousUserId = existing.map(BehavioralPattern::getUserId).orElse(null);
+    }
+
+    BehavioralPattern saved = patterns.save(body);
+
+    if (existed) {
+      patterns.flush();
+      rebuild(saved.getUserId());
+      if (!Objects.equals(previousUserId, saved.getUserId())) rebuild(previousUserId);
+    } else if (hasUser(saved.getUserId())) {
+      lockBaseline(saved.getUserId()).accumulate(saved);
+      cache.invalidateAfterCommit(saved.getUserId());
+    }
+    return saved;
+  }
+
+  /**
+   * Folds patterns that were inserted outside {@link #save} (bulk COPY) into their users' baselines. Must run
+   * in the inserting transaction so the baseline and the history commit together.
+   */
+  @Transactional
+  public void accumulateAll(Collection<BehavioralPattern> inserted) {
+    Map<String, List<BehavioralPattern>> byUser = new TreeMap<>();
+    for (BehavioralPattern p : inserted) {
+      if (hasUser(p.getUserId())) byUser.computeIfAbsent(p.getUserId(), u -> new ArrayList<>()).add(p);
+    }
+    // Sorted user order keeps concurrent bulk loads from deadlocking on each other's baseline rows.
+    byUser.forEach((userId, ps) -> {
+      BehavioralBaseline b = lockBaseline(userId);
+      for (BehavioralPattern p : ps) b.accumulate(p);
+      cache.invalidateAfterCommit(userId);
+    });
+  }
+
+  /** Returns the user's baseline, or null when fewer than {@link #MIN_PATTERNS} patterns exist. */
+  @Transactional(readOnly = true)
+  public BaselineProfile load(String userId) {
+    if (!hasUser(userId)) return null;
+    return baselines.findById(userId)
+      .filter(b -> b.getPatternCount() >= MIN_PATTERNS)
+      .map(BehavioralBaseline::toProfile)
+      .orElse(null);
+  }
+
+  /** Bulk variant of {@link #load}; users without a sufficient baseline are absent from the result. */
+  @Transactional(readOnly = true)
+  public Map<String, BaselineProfile> loadAll(Collection<String> userIds) {
+    Map<String, BaselineProfile> out = new HashMap<>();
+    if (userIds.isEmpty()) return out;
+    for (BehavioralBaseline b : baselines.findAllById(userIds)) {
+      if (b.getPatternCount() >= MIN_PATTERNS) out.put(b.getUserId(), b.toProfile());
+    }
+    return out;
+  }
+
+  /** Recomputes a user's baseline from their full pattern history. */
+  @Transactional
+  public void rebuild(String userId) {
+    if (!hasUser(userId)) return;
+    BehavioralBaseline b = lockBaseline(userId);
+    b.reset();
+    for (BehavioralPattern p : patterns.findByUserIdOrderByCreatedAtDesc(userId)) {
+      b.accumulate(p);
+    }
+    cache.invalidateAfterCommit(userId);
+  }
+
+  private BehavioralBaseline lockBaseline(String userId) {
+    baselines.ensureExists(userId);
+    return baselines.findForUpdate(userId)
+      .orElseThrow(() -> new IllegalStateException("Baseline row missing for user " + userId));
+  }
+
+  private static boolean hasUser(String userId) {
+    return userId != null && !userId.isBlank();
+  }
+}
@@ -0,0 +1,236 @@
+package com.authshield.server.service;
+
+import com.authshield.server.dto.common.BulkIngestResponse;
+import com.authshield.server.model.AuthenticationEvent;
+import com.authshield.server.model.BehavioralPattern;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Loads NDJSON telemetry (one JSON object per line) with the PostgreSQL COPY protocol.
+ *
+ * The body is read a line at a time, so memory is bounded by one batch regardless of upload size. Lines that
+ * don't parse or validate are rejected individually; valid rows are encoded as CSV and COPYed in batches of
+ * {@code batch-size}, each in its own transaction. A batch the database refuses (e.g. an unknown user id or a
+ * duplicate primary key) is rejected as a whole and reported by its line range; earlier and later batches are
+ * unaffected.
+ *
+ * Side effects match the single-row endpoints: patterns are folded into their users' baselines in the same
+ * transaction as the COPY, and auth events are counted into the dashboard rollups once committed.
+ */
+@Service
+public class BulkIngestService {
+
+  private record Target<T>(String copySql,
+                           Class<T> type,
+                           Consumer<ObjectNode> normalize,
+                           Function<T, String> validate,
+                           Consumer<T> prepare,
+                           Function<T, Object[]> columns,
+                           Consumer<List<T>> inTransaction,
+                           Consumer<List<T>> afterCommit) {}
+
+  private final ObjectMapper om;
+  private final JdbcTemplate jdbc;
+  private final TransactionTemplate tx;
+  private final int batchSize;
+  private final int maxErrors;
+  private final Target<AuthenticationEvent> authEvents;
+  private final Target<BehavioralPattern> patterns;
+
+  public BulkIngestService(ObjectMapper om,
+                           JdbcTemplate jdbc,
+                           TransactionTemplate tx,
+                           BehavioralBaselineService baselines,
+                           DashboardRollupService rollups,
+                           @Value("${authshield.ingest.batch-size:5000}") int batchSize,
+                           @Value("${authshield.ingest.max-errors:100}") int maxErrors) {
+    this.om = om;
+    this.jdbc = jdbc;
+    this.tx = tx;
+    this.batchSize = Math.max(1, batchSize);
+    this.maxErrors = Math.max(0, maxErrors);
+
+    this.authEvents = new Target<>(
+      "copy authentication_events (id, user_id, device_profile_id, tls_fingerprint_id, session_id, event_type, " +
+      "ip_address, device_score, tls_score, behavioral_score, overall_risk_score, confidence_level, step_up_required, " +
+      "success, metadata, created_at) from stdin (format csv)",
+      AuthenticationEvent.class,
+      node -> {
+        // The entity keeps metadata as a JSON string; collectors send it as an object.
+        JsonNode m = node.get("metadata");
+        if (m != null && m.isContainerNode()) node.put("metadata", m.toString());
+      },
+      e -> e.getEventType() == null || e.getEventType().isBlank() ? "eventType is required" : null,
+      AuthenticationEvent::prePersist,
+      e -> new Object[]{e.getId(), e.getUserId(), e.getDeviceProfileId(), e.getTlsFingerprintId(), e.getSessionId(),
+        e.getEventType(), e.getIpAddress(), e.getDeviceScore(), e.getTlsScore(), e.getBehavioralScore(),
+        e.getOverallRiskScore(), e.getConfidenceLevel(), e.getStepUpRequired(), e.getSuccess(), e.getMetadata(),
+        e.getCreatedAt()},
+      rows -> {},
+      rows -> rows.forEach(e -> rollups.record(DashboardRollupService.AUTH_EVENTS, e.getCreatedAt())));
+
+    this.patterns = new Target<>(
+      "copy behavioral_patterns (id, user_id, device_profile_id, session_id, avg_mouse_speed, mouse_speed_variance, " +
+      "avg_mouse_acceleration, straight_line_ratio, curve_complexity, avg_key_hold_time, key_hold_variance, " +
+      "avg_flight_time, flight_time_variance, typing_speed, error_rate, sample_count, raw_data, confidence_score, " +
+      "created_at) from stdin (format csv)",
+      BehavioralPattern.class,
+      node -> {},
+      p -> p.getSampleCount() != null && p.getSampleCount() < 0 ? "sampleCount must not be negative" : null,
+      BehavioralPattern::prePersist,
+      p -> new Object[]{p.getId(), p.getUserId(), p.getDeviceProfileId(), p.getSessionId(), p.getAvgMouseSpeed(),
+        p.getMouseSpeedVariance(), p.getAvgMouseAcceleration(), p.getStraightLineRatio(), p.getCurveComplexity(),
+        p.getAvgKeyHoldTime(), p.getKeyHoldVariance(), p.getAvgFlightTime(), p.getFlightTimeVariance(),
+        p.getTypingSpeed(), p.getErrorRate(), p.getSampleCount(), p.getRawData(), p.getConfidenceScore(),
+        p.getCreatedAt()},
+      baselines::accumulateAll,
+      rows -> {});
+  }
+
+  public BulkIngestResponse ingestAuthEvents(InputStream ndjson) {
+    return ingest(ndjson, authEvents);
+  }
+
+  public BulkIngestResponse ingestBehavioralPatterns(InputStream ndjson) {
+    return ingest(ndjson, patterns);
+  }
+
+  private <T> BulkIngestResponse ingest(InputStream in, Target<T> t) {
+    long t0 = System.nanoTime();
+    BulkIngestResponse res = new BulkIngestResponse();
+    List<T> batch = new ArrayList<>(batchSize);
+    long lineNo = 0, batchFrom = 0;
+
+    try (BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16)) {
+      String line;
+      while ((line = r.readLine()) != null) {
+        lineNo++;
+        if (line.isBlank()) continue;
+        res.received++;
+
+        T row;
+        try {
+          JsonNode node = om.readTree(line);
+          if (!(node instanceof ObjectNode obj)) {
+            reject(res, lineNo, lineNo, "expected a JSON object", 1);
+            continue;
+          }
+          t.normalize().accept(obj);
+          row = om.treeToValue(obj, t.type());
+        } catch (JsonProcessingException e) {
+          reject(res, lineNo, lineNo, "invalid JSON: " + e.getOriginalMessage(), 1);
+          continue;
+        }
+        String problem = t.validate().apply(row);
+        if (problem != null) {
+          reject(res, lineNo, lineNo, problem, 1);
+          continue;
+        }
+
+        t.prepare().accept(row);
+        if (batch.isEmpty()) batchFrom = lineNo;
+        batch.add(row);
+        if (batch.size() >= batchSize) {
+          flush(t, batch, batchFrom, lineNo, res);
+          batch.clear();
+        }
+      }
+    } catch (IOException e) {
+      // The upload broke off; whatever parsed so far is still loaded below.
+      addError(res, new BulkIngestResponse.Error(lineNo + 1, lineNo + 1, "request body read failed: " + e.getMessage()));
+    }
+    if (!batch.isEmpty()) flush(t, batch, batchFrom, lineNo, res);
+
+    long nanos = System.nanoTime() - t0;
+    res.elapsedMs = nanos / 1_000_000;
+    res.rowsPerSecond = nanos > 0 ? (long) (res.inserted * 1e9 / nanos) : 0;
+    return res;
+  }
+
+  private <T> void flush(Target<T> t, List<T> rows, long fromLine, long toLine, BulkIngestResponse res) {
+    res.batches++;
+    byte[] csv = encode(t, rows);
+    try {
+      tx.executeWithoutResult(status -> {
+        jdbc.execute((ConnectionCallback<Long>) con -> {
+          try {
+            return con.unwrap(PGConnection.class).getCopyAPI().copyIn(t.copySql(), new ByteArrayInputStream(csv));
+          } catch (IOException e) {
+            throw new SQLException("COPY stream failed", e);
+          }
+        });
+        t.inTransaction().accept(rows);
+      });
+    } catch (Exception e) {
+      reject(res, fromLine, toLine, "batch rejected: " + rootMessage(e), rows.size());
+      return;
+    }
+    res.inserted += rows.size();
+    t.afterCommit().accept(rows);
+  }
+
+  private static <T> byte[] encode(Target<T> t, List<T> rows) {
+    StringBuilder sb = new StringBuilder(rows.size() * 256);
+    for (T row : rows) appendCsv(sb, t.columns().apply(row));
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /** One CSV line as COPY expects it: unquoted empty for NULL, everything textual quoted. */
+  static void appendCsv(StringBuilder sb, Object[] cols) {
+    for (int i = 0; i < cols.length; i++) {
+      if (i > 0) sb.append(',');
+      Object v = cols[i];
+      if (v == null) continue;
+      if (v instanceof Number || v instanceof Boolean) {
+        sb.append(v);
+        continue;
+      }
+      String s = v.toString();
+      sb.append('"');
+      for (int j = 0; j < s.length(); j++) {
+        char c = s.charAt(j);
+        if (c == '"') sb.append('"');
+        sb.append(c);
+      }
+      sb.append('"');
+    }
+    sb.append('\n');
+  }
+
+  private void reject(BulkIngestResponse res, long fromLine, long toLine, String message, int rows) {
+    res.rejected += rows;
+    addError(res, new BulkIngestResponse.Error(fromLine, toLine, message));
+  }
+
+  private void addError(BulkIngestResponse res, BulkIngestResponse.Error error) {
+    if (res.errors.size() < maxErrors) res.errors.add(error);
+    else res.errorsTruncated = true;
+  }
+
+  private static String rootMessage(Throwable e) {
+    Throwable root = e;
+    while (root.getCause() != null && root.getCause() != root) root = root.getCause();
+    return root.getMessage();
+  }
+}
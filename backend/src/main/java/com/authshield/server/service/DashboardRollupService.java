@@ -0,0 +1,264 @@
+package com.authshield.server.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incrementally maintained per-minute rollups (and all-time totals) backing the dashboard.
+ *
+ * Writers call {@link #record} as rows are inserted; counts accumulate in memory and are flushed on a
+ * fixed delay as additive upserts, so concurrent nodes can share the same tables and no insert ever
+ * contends on a hot rollup row. Reads merge in whatever hasn't been flushed yet.
+ *
+ * A row is only counted once it is durable: inside a transaction the count waits for the commit (and is
+ * dropped on rollback), and write-behind rows are counted by {@link ScoringWriteBehind} after their batch
+ * commits. Partitions removed by retention are taken back out with {@link #forgetPartition}.
+ */
+@Service
+public class DashboardRollupService {
+
+  public static final String RISK_SCORES = "risk_scores";
+  public static final String USERS = "users";
+  public static final String DEVICE_PROFILES = "device_profiles";
+  public static final String SESSIONS = "sessions";
+  public static final String ANOMALY_ALERTS = "anomaly_alerts";
+  public static final String AUTH_EVENTS = "authentication_events";
+
+  private static final Set<String> METRICS =
+    Set.of(RISK_SCORES, USERS, DEVICE_PROFILES, SESSIONS, ANOMALY_ALERTS, AUTH_EVENTS);
+
+  private static final Logger log = LoggerFactory.getLogger(DashboardRollupService.class);
+
+  private static final String UPSERT_BUCKET = """
+    insert into dashboard_rollups (metric, bucket_start, event_count, high_count, med_count, low_count, score_sum, score_min, score_max)
+    values (?, ?, ?, ?, ?, ?, ?, ?, ?)
+    on conflict (metric, bucket_start) do update set
+      event_count = dashboard_rollups.event_count + excluded.event_count,
+      high_count  = dashboard_rollups.high_count + excluded.high_count,
+      med_count   = dashboard_rollups.med_count + excluded.med_count,
+      low_count   = dashboard_rollups.low_count + excluded.low_count,
+      score_sum   = dashboard_rollups.score_sum + excluded.score_sum,
+      score_min   = least(dashboard_rollups.score_min, excluded.score_min),
+      score_max   = greatest(dashboard_rollups.score_max, excluded.score_max)
+    """;
+
+  private static final String UPSERT_TOTAL = """
+    insert into dashboard_totals (metric, event_count, high_count, med_count, low_count, score_sum, score_min, score_max)
+    values (?, ?, ?, ?, ?, ?, ?, ?)
+    on conflict (metric) do update set
+      event_count = dashboard_totals.event_count + excluded.event_count,
+      high_count  = dashboard_totals.high_count + excluded.high_count,
+      med_count   = dashboard_totals.med_count + excluded.med_count,
+      low_count   = dashboard_totals.low_count + excluded.low_count,
+      score_sum   = dashboard_totals.score_sum + excluded.score_sum,
+      score_min   = least(dashboard_totals.score_min, excluded.score_min),
+      score_max   = greatest(dashboard_totals.score_max, excluded.score_max)
+    """;
+
+  private record BucketKey(String metric, Instant bucketStart) {}
+
+  /** Aggregate for one metric over a bucket or a range. Score fields are only meaningful for risk_scores. */
+  public static final class Totals {
+    public long count;
+    public long high;
+    public long medium;
+    public long low;
+    public double scoreSum;
+    public Double scoreMin;
+    public Double scoreMax;
+
+    synchronized void add(Double score) {
+      count++;
+      if (score == null) return;
+      double s = score;
+      if (s >= 0.7) high++;
+      else if (s >= 0.4) medium++;
+      else low++;
+      scoreSum += s;
+      scoreMin = scoreMin == null ? s : Math.min(scoreMin, s);
+      scoreMax = scoreMax == null ? s : Math.max(scoreMax, s);
+    }
+
+    /** Merges {@code o} into this. Only ever called with {@code this} private to the caller. */
+    synchronized void merge(Totals o) {
+      synchronized (o) {
+        count += o.count;
+        high += o.high;
+        medium += o.medium;
+        low += o.low;
+        scoreSum += o.scoreSum;
+        if (o.scoreMin != null) scoreMin = scoreMin == null ? o.scoreMin : Math.min(scoreMin, o.scoreMin);
+        if (o.scoreMax != null) scoreMax = scoreMax == null ? o.scoreMax : Math.max(scoreMax, o.scoreMax);
+      }
+    }
+
+    public double avgScore() {
+      long scored = high + medium + low;
+      return scored == 0 ? 0.0 : scoreSum / scored;
+    }
+  }
+
+  private final JdbcTemplate jdbc;
+  private final Map<BucketKey, Totals> pending = new ConcurrentHashMap<>();
+
+  public DashboardRollupService(JdbcTemplate jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  /**
+   * Counts one inserted row (and its score, for risk_scores) into the minute bucket of {@code at}. Called inside
+   * a transaction, the count is deferred until it commits.
+   */
+  public void record(String metric, OffsetDateTime at, Double score) {
+    Instant ts = (at != null ? at.toInstant() : Instant.now()).truncatedTo(ChronoUnit.MINUTES);
+    BucketKey key = new BucketKey(metric, ts);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          add(key, score);
+        }
+      });
+    } else {
+      add(key, score);
+    }
+  }
+
+  private void add(BucketKey key, Double score) {
+    // compute() runs atomically against flush()'s remove(), so no increment can land in a detached bucket.
+    pending.compute(key, (k, t) -> {
+      Totals out = t != null ? t : new Totals();
+      out.add(score);
+      return out;
+    });
+  }
+
+  public void record(String metric, OffsetDateTime at) {
+    record(metric, at, null);
+  }
+
+  @Scheduled(fixedDelayString = "${authshield.dashboard.rollup.flush-interval-ms:5000}")
+  public void flush() {
+    if (pending.isEmpty()) return;
+
+    Map<BucketKey, Totals> drained = new HashMap<>();
+    for (BucketKey k : pending.keySet()) {
+      Totals t = pending.remove(k);
+      if (t != null) drained.put(k, t);
+    }
+
+    Map<String, Totals> byMetric = new HashMap<>();
+    List<Object[]> bucketRows = new ArrayList<>(drained.size());
+    for (var e : drained.entrySet()) {
+      Totals t = e.getValue();
+      byMetric.computeIfAbsent(e.getKey().metric(), m -> new Totals()).merge(t);
+      bucketRows.add(new Object[]{e.getKey().metric(), Timestamp.from(e.getKey().bucketStart()),
+        t.count, t.high, t.medium, t.low, t.scoreSum, t.scoreMin, t.scoreMax});
+    }
+    List<Object[]> totalRows = new ArrayList<>(byMetric.size());
+    byMetric.forEach((m, t) -> totalRows.add(new Object[]{m, t.count, t.high, t.medium, t.low, t.scoreSum, t.scoreMin, t.scoreMax}));
+
+    try {
+      jdbc.batchUpdate(UPSERT_BUCKET, bucketRows);
+      jdbc.batchUpdate(UPSERT_TOTAL, totalRows);
+    } catch (Exception e) {
+      // Put the counts back so the next flush retries them.
+      log.warn("Dashboard rollup flush failed; retrying next cycle", e);
+      drained.forEach((k, t) -> pending.merge(k, t, (cur, back) -> { back.merge(cur); return back; }));
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    flush();
+  }
+
+  /**
+   * Takes the rows of {@code partition} (the {@code month} partition of table {@code metric}) out of the totals
+   * and deletes that month's buckets. Call it in the transaction that detaches the partition, before the
+   * detach. score_min/score_max can't be subtracted and stay all-time bounds. No-op for untracked tables.
+   */
+  public void forgetPartition(String metric, String partition, YearMonth month) {
+    if (!METRICS.contains(metric)) return;
+    String aggregate = RISK_SCORES.equals(metric)
+      ? "select count(*) n, count(*) filter (where overall_score >= 0.7) h, " +
+        "count(*) filter (where overall_score >= 0.4 and overall_score < 0.7) m, " +
+        "count(*) filter (where overall_score < 0.4) l, coalesce(sum(overall_score), 0) s from " + partition
+      : "select count(*) n, 0 h, 0 m, 0 l, 0 s from " + partition;
+    jdbc.update("update dashboard_totals t set event_count = t.event_count - p.n, high_count = t.high_count - p.h, " +
+                "med_count = t.med_count - p.m, low_count = t.low_count - p.l, score_sum = t.score_sum - p.s " +
+                "from (" + aggregate + ") p where t.metric = ?", metric);
+    jdbc.update("delete from dashboard_rollups where metric = ? and bucket_start >= ? and bucket_start < ?", metric,
+      Timestamp.from(month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC)),
+      Timestamp.from(month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC)));
+  }
+
+  /** All-time totals per metric. */
+  public Map<String, Totals> totals(Collection<String> metrics) {
+    Map<String, Totals> out = empty(metrics);
+    jdbc.query("select metric, event_count, high_count, med_count, low_count, score_sum, score_min, score_max " +
+               "from dashboard_totals where metric = any(?)",
+      rs -> { readInto(out, rs); },
+      (Object) metrics.toArray(String[]::new));
+    mergePending(out, null);
+    return out;
+  }
+
+  /** Totals per metric for rows written since {@code since} (minute granularity). */
+  public Map<String, Totals> since(Collection<String> metrics, OffsetDateTime since) {
+    Instant from = since.toInstant().truncatedTo(ChronoUnit.MINUTES);
+    Map<String, Totals> out = empty(metrics);
+    jdbc.query("select metric, sum(event_count), sum(high_count), sum(med_count), sum(low_count), sum(score_sum), " +
+               "min(score_min), max(score_max) from dashboard_rollups " +
+               "where metric = any(?) and bucket_start >= ? group by metric",
+      rs -> { readInto(out, rs); },
+      metrics.toArray(String[]::new), Timestamp.from(from));
+    mergePending(out, from);
+    return out;
+  }
+
+  private static Map<String, Totals> empty(Collection<String> metrics) {
+    Map<String, Totals> out = new HashMap<>();
+    for (String m : metrics) out.put(m, new Totals());
+    return out;
+  }
+
+  private static void readInto(Map<String, Totals> out, java.sql.ResultSet rs) throws java.sql.SQLException {
+    Totals t = out.get(rs.getString(1));
+    if (t == null) return;
+    t.count = rs.getLong(2);
+    t.high = rs.getLong(3);
+    t.medium = rs.getLong(4);
+    t.low = rs.getLong(5);
+    t.scoreSum = rs.getDouble(6);
+    t.scoreMin = (Double) rs.getObject(7);
+    t.scoreMax = (Double) rs.getObject(8);
+  }
+
+  private void mergePending(Map<String, Totals> out, Instant from) {
+    pending.forEach((k, t) -> {
+      Totals target = out.get(k.metric());
+      if (target != null && (from == null || !k.bucketStart().isBefore(from))) target.merge(t);
+    });
+  }
+}
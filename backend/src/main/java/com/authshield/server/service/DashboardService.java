@@ -4,26 +4,40 @@ import com.authshield.server.repo.*;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static com.authshield.server.service.DashboardRollupService.*;
+
 @Service
 public class DashboardService {
 
+  private static final List<String> STATS_METRICS = List.of(USERS, DEVICE_PROFILES, SESSIONS, ANOMALY_ALERTS, AUTH_EVENTS);
+
   private final JdbcTemplate jdbc;
+  private final DashboardRollupService rollups;
 
-  public DashboardService(JdbcTemplate jdbc) {
+  public DashboardService(JdbcTemplate jdbc, DashboardRollupService rollups) {
     this.jdbc = jdbc;
+    this.rollups = rollups;
   }
 
-  public Map<String,Object> stats() {
+  /**
+   * Row counts served from the rollup tables. With a range, counts only rows written within it;
+   * otherwise all-time totals.
+   */
+  public Map<String,Object> stats(Duration range) {
+    Map<String, Totals> t = rollup(STATS_METRICS, range);
     Map<String,Object> out = new HashMap<>();
-    out.put("users", jdbc.queryForObject("select count(*) from users", Long.class));
-    out.put("devices", jdbc.queryForObject("select count(*) from device_profiles", Long.class));
-    out.put("sessions", jdbc.queryForObject("select count(*) from sessions", Long.class));
-    out.put("anomalies", jdbc.queryForObject("select count(*) from anomaly_alerts", Long.class));
-    out.put("authEvents", jdbc.queryForObject("select count(*) from authentication_events", Long.class));
+    out.put("users", t.get(USERS).count);
+    out.put("devices", t.get(DEVICE_PROFILES).count);
+    out.put("sessions", t.get(SESSIONS).count);
+    out.put("anomalies", t.get(ANOMALY_ALERTS).count);
+    out.put("authEvents", t.get(AUTH_EVENTS).count);
+    if (range != null) out.put("range", range.toString());
     return out;
   }
 
@@ -37,14 +51,22 @@ public class DashboardService {
     """);
   }
 
-  public Map<String,Object> riskFactors() {
+  public Map<String,Object> riskFactors(Duration range) {
     // a very small rollup; UI can render as-is
+    Totals t = rollup(List.of(RISK_SCORES), range).get(RISK_SCORES);
     Map<String,Object> out = new HashMap<>();
-    Double avg = jdbc.queryForObject("select coalesce(avg(overall_score),0) from risk_scores", Double.class);
-    out.put("avgOverallScore", avg);
-    out.put("highRiskSessions", jdbc.queryForObject("select count(*) from risk_scores where overall_score >= 0.7", Long.class));
-    out.put("medRiskSessions", jdbc.queryForObject("select count(*) from risk_scores where overall_score >= 0.4 and overall_score < 0.7", Long.class));
-    out.put("lowRiskSessions", jdbc.queryForObject("select count(*) from risk_scores where overall_score < 0.4", Long.class));
+    out.put("avgOverallScore", t.avgScore());
+    out.put("highRiskSessions", t.high);
+    out.put("medRiskSessions", t.medium);
+    out.put("lowRiskSessions", t.low);
+    out.put("minOverallScore", t.scoreMin);
+    out.put("maxOverallScore", t.scoreMax);
+    out.put("totalScores", t.count);
+    if (range != null) out.put("range", range.toString());
     return out;
   }
+
+  private Map<String, Totals> rollup(List<String> metrics, Duration range) {
+    return range == null ? rollups.totals(metrics) : rollups.since(metrics, OffsetDateTime.now().minus(range));
+  }
 }
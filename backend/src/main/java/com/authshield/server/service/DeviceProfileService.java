@@ -11,9 +11,11 @@ import java.time.OffsetDateTime;
 public class DeviceProfileService {
 
     private final DeviceProfileRepository repo;
+    private final DashboardRollupService rollups;
 
-    public DeviceProfileService(DeviceProfileRepository repo) {
+    public DeviceProfileService(DeviceProfileRepository repo, DashboardRollupService rollups) {
         this.repo = repo;
+        this.rollups = rollups;
     }
 
     @Transactional
@@ -42,7 +44,9 @@ public class DeviceProfileService {
                     incoming.setFirstSeen(OffsetDateTime.now());
                     incoming.setLastSeen(OffsetDateTime.now());
                     incoming.setSeenCount(1);
-                    return incoming;
+                    DeviceProfile saved = repo.save(incoming);
+                    rollups.record(DashboardRollupService.DEVICE_PROFILES, saved.getFirstSeen());
+                    return saved;
                 });
     }
 }
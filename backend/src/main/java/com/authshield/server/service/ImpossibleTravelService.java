@@ -4,17 +4,22 @@ import com.authshield.server.dto.geo.ImpossibleTravelRequest;
 import com.authshield.server.dto.geo.ImpossibleTravelResponse;
 import com.authshield.server.model.AnomalyAlert;
 import com.authshield.server.model.Geolocation;
-import com.authshield.server.repo.AnomalyAlertRepository;
 import com.authshield.server.repo.GeolocationRepository;
+import com.authshield.server.service.LocationHistoryCache.KnownLocation;
+import com.authshield.server.ws.LiveEvent;
+import com.authshield.server.ws.Severity;
 import com.authshield.server.ws.WebSocketHub;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -28,18 +33,24 @@ import java.util.UUID;
 public class ImpossibleTravelService {
 
   private final GeolocationRepository geos;
-  private final AnomalyAlertRepository alerts;
+  private final ScoringWriteBehind writeBehind;
   private final WebSocketHub hub;
   private final ObjectMapper om;
+  private final LocationHistoryCache locationHistory;
+  private final IpGeoResolver ipGeo;
 
   public ImpossibleTravelService(GeolocationRepository geos,
-                                 AnomalyAlertRepository alerts,
+                                 ScoringWriteBehind writeBehind,
                                  WebSocketHub hub,
-                                 ObjectMapper om) {
+                                 ObjectMapper om,
+                                 LocationHistoryCache locationHistory,
+                                 IpGeoResolver ipGeo) {
     this.geos = geos;
-    this.alerts = alerts;
+    this.writeBehind = writeBehind;
     this.hub = hub;
     this.om = om;
+    this.locationHistory = locationHistory;
+    this.ipGeo = ipGeo;
   }
 
   public ImpossibleTravelResponse detectAndRecord(ImpossibleTravelRequest req) {
@@ -47,29 +58,37 @@ public class ImpossibleTravelService {
       throw new IllegalArgumentException("userId is required");
     }
 
-    Geolocation lastGeo = geos.findTopByUserIdOrderByCreatedAtDesc(req.userId).orElse(null);
+    // Clients may omit coordinates; derive them from the IP when the local database knows it.
+    ipGeo.fillMissing(req);
+
+    KnownLocation[] window = locationHistory
+        .get(req.userId, (id, n) -> geos.findByUserIdOrderByCreatedAtDesc(id, PageRequest.of(0, n)))
+        .snapshot();
+    KnownLocation lastGeo = window.length > 0 ? window[window.length - 1] : null;
+    OffsetDateTime now = OffsetDateTime.now();
 
     boolean impossibleTravel = false;
     AnomalyAlert alert = null;
+    TravelPattern pattern = analyzeWindow(window, req.latitude, req.longitude, req.country, now);
 
     Double distanceKm = null;
     Double timeDeltaHours = null;
     Double requiredSpeedKmh = null;
 
     if (lastGeo != null
-        && lastGeo.getLatitude() != null && lastGeo.getLongitude() != null
+        && lastGeo.latitude() != null && lastGeo.longitude() != null
         && req.latitude != null && req.longitude != null
-        && lastGeo.getCreatedAt() != null) {
+        && lastGeo.at() != null) {
 
-      distanceKm = haversineKm(lastGeo.getLatitude(), lastGeo.getLongitude(), req.latitude, req.longitude);
+      distanceKm = haversineKm(lastGeo.latitude(), lastGeo.longitude(), req.latitude, req.longitude);
 
-      Duration delta = Duration.between(lastGeo.getCreatedAt(), OffsetDateTime.now());
+      Duration delta = Duration.between(lastGeo.at(), now);
       double hours = Math.max(0.0, delta.toMillis() / (1000.0 * 60.0 * 60.0));
       timeDeltaHours = hours;
 
       requiredSpeedKmh = (hours > 0.0) ? (distanceKm / hours) : Double.POSITIVE_INFINITY;
 
-      if (requiredSpeedKmh > 1000.0) {
+      if (requiredSpeedKmh > IMPOSSIBLE_SPEED_KMH) {
         impossibleTravel = true;
         double riskScore = Math.min(1.0, requiredSpeedKmh / 10000.0);
 
@@ -83,12 +102,12 @@ public class ImpossibleTravelService {
         sourceLoc.put("lng", req.longitude);
         metadata.put("sourceLocation", sourceLoc);
 
-        metadata.put("previousIp", lastGeo.getIpAddress());
+        metadata.put("previousIp", lastGeo.ipAddress());
         Map<String,Object> prevLoc = new HashMap<>();
-        prevLoc.put("city", lastGeo.getCity());
-        prevLoc.put("country", lastGeo.getCountry());
-        prevLoc.put("lat", lastGeo.getLatitude());
-        prevLoc.put("lng", lastGeo.getLongitude());
+        prevLoc.put("city", lastGeo.city());
+        prevLoc.put("country", lastGeo.country());
+        prevLoc.put("lat", lastGeo.latitude());
+        prevLoc.put("lng", lastGeo.longitude());
         metadata.put("previousLocation", prevLoc);
         metadata.put("travelDistanceKm", distanceKm);
         metadata.put("timeDeltaMinutes", hours * 60.0);
@@ -99,14 +118,14 @@ public class ImpossibleTravelService {
         a.setUserId(req.userId);
         a.setAlertType("impossible_travel");
         a.setSeverity(requiredSpeedKmh > 5000.0 ? "critical" : "high");
-        String fromCity = safe(lastGeo.getCity());
-        String fromCountry = safe(lastGeo.getCountry());
+        String fromCity = safe(lastGeo.city());
+        String fromCountry = safe(lastGeo.country());
         String toCity = safe(req.city);
         String toCountry = safe(req.country);
         a.setDescription("User appeared in " + toCity + ", " + toCountry + " from " + fromCity + ", " + fromCountry +
             " requiring " + Math.round(requiredSpeedKmh) + " km/h travel speed");
         a.setMetadata(writeJson(metadata));
-        alert = alerts.save(a);
+        alert = writeBehind.save(a);
 
         // Broadcast activity (matches Node broadcastActivity)
         Map<String,Object> activity = new HashMap<>();
@@ -119,11 +138,17 @@ public class ImpossibleTravelService {
             Math.round(hours * 60.0) + " minutes");
         activity.put("timestamp", OffsetDateTime.now().toString());
         try {
-          hub.broadcastJson(writeJson(Map.of("type", "activity", "activity", activity)));
+          hub.broadcast(LiveEvent.of("activity", req.userId, Severity.parse(alert.getSeverity())),
+              writeJson(Map.of("type", "activity", "activity", activity)));
         } catch (Exception ignored) {}
       }
     }
 
+    // An impossible hop earlier in the window (e.g. alternating between two cities) counts as well while it is
+    // recent. It was alerted on when it happened (if it went through here), so it doesn't raise another alert.
+    double travelSpeedKmh = Math.max(requiredSpeedKmh == null ? 0.0 : requiredSpeedKmh, pattern.maxRecentHopSpeedKmh());
+    if (pattern.maxRecentHopSpeedKmh() > IMPOSSIBLE_SPEED_KMH) impossibleTravel = true;
+
     // Record new geolocation (mirrors Node createGeolocation)
     Geolocation g = new Geolocation();
     g.setUserId(req.userId);
@@ -133,10 +158,12 @@ public class ImpossibleTravelService {
     g.setLongitude(req.longitude);
     g.setCity(req.city);
     g.setCountry(req.country);
-    if (impossibleTravel && requiredSpeedKmh != null) {
-      g.setRiskScore(Math.min(1.0, requiredSpeedKmh / 10000.0));
+    if (impossibleTravel) {
+      g.setRiskScore(Math.min(1.0, travelSpeedKmh / 10000.0));
     }
-    Geolocation saved = geos.save(g);
+    ipGeo.annotate(g);
+    Geolocation saved = writeBehind.save(g);
+    locationHistory.record(saved);
 
     Map<String,Object> factors = new HashMap<>();
     // Both keys: camelCase (existing) + snake_case (UI parity)
@@ -147,9 +174,102 @@ public class ImpossibleTravelService {
     if (requiredSpeedKmh != null) factors.put("requiredSpeedKmh", requiredSpeedKmh);
     if (alert != null) factors.put("alertId", alert.getId());
 
+    factors.put("windowHops", pattern.hops());
+    factors.put("maxHopSpeedKmh", pattern.maxHopSpeedKmh());
+    factors.put("maxRecentHopSpeedKmh", pattern.maxRecentHopSpeedKmh());
+    factors.put("distinctCountries", pattern.distinctCountries());
+    factors.put("returnToOrigin", pattern.returnToOrigin());
+    factors.put("windowSpanMinutes", pattern.spanMinutes());
+
     return new ImpossibleTravelResponse(impossibleTravel, alert, saved, factors);
   }
 
+  /**
+   * Movement over the user's recent-location window followed by the current location. {@code maxRecentHopSpeedKmh}
+   * only covers hops that ended within {@link #RECENT_HOP_WINDOW}; that one feeds the impossible-travel decision.
+   */
+  record TravelPattern(int hops, double maxHopSpeedKmh, double maxRecentHopSpeedKmh, int distinctCountries,
+                       boolean returnToOrigin, double spanMinutes) {}
+
+  /** Faster than this between two locations is impossible travel. */
+  private static final double IMPOSSIBLE_SPEED_KMH = 1000.0;
+  /** How long an impossible hop inside the window keeps flagging later logins. */
+  static final Duration RECENT_HOP_WINDOW = Duration.ofHours(24);
+  /**
+   * Hops are timed with at least this interval. Two points stamped the same instant (clock granularity, or a
+   * location replayed alongside another) then give a huge but finite speed instead of no speed at all.
+   */
+  static final Duration MIN_HOP_INTERVAL = Duration.ofMinutes(1);
+
+  /** Within this distance of an earlier location counts as being back at it. */
+  private static final double ORIGIN_RADIUS_KM = 100.0;
+  /** How far away the user must have been in between for a return to count. */
+  private static final double AWAY_DISTANCE_KM = 500.0;
+  /** Hops shorter than this are GPS/geo-IP jitter, not travel. */
+  private static final double MIN_HOP_KM = 1.0;
+
+  /**
+   * Single O(window) pass over the oldest-first {@code window} plus the current point: fastest hop between
+   * consecutive located points (overall and recent), distinct countries, and whether the user came back to within
+   * {@value #ORIGIN_RADIUS_KM} km of an earlier location after being more than {@value #AWAY_DISTANCE_KM} km away.
+   */
+  static TravelPattern analyzeWindow(KnownLocation[] window, Double lat, Double lon, String country, OffsetDateTime now) {
+    boolean hasCurrent = lat != null && lon != null;
+    Set<String> countries = new HashSet<>();
+    if (country != null && !country.isBlank()) countries.add(country.trim().toLowerCase());
+
+    int hops = 0;
+    double maxSpeed = 0.0, maxRecent = 0.0;
+    OffsetDateTime recentSince = now.minus(RECENT_HOP_WINDOW);
+    KnownLocation prev = null;
+    OffsetDateTime first = null;
+    for (KnownLocation p : window) {
+      if (p.country() != null && !p.country().isBlank()) countries.add(p.country().trim().toLowerCase());
+      if (p.at() != null && first == null) first = p.at();
+      if (p.latitude() == null || p.longitude() == null || p.at() == null) continue;
+      if (prev != null) {
+        hops++;
+        double speed = hopSpeedKmh(prev.latitude(), prev.longitude(), prev.at(), p.latitude(), p.longitude(), p.at());
+        maxSpeed = Math.max(maxSpeed, speed);
+        if (!p.at().isBefore(recentSince)) maxRecent = Math.max(maxRecent, speed);
+      }
+      prev = p;
+    }
+    if (hasCurrent && prev != null) {
+      hops++;
+      double speed = hopSpeedKmh(prev.latitude(), prev.longitude(), prev.at(), lat, lon, now);
+      maxSpeed = Math.max(maxSpeed, speed);
+      maxRecent = Math.max(maxRecent, speed);
+    }
+
+    // Walk back from the newest point; a return needs a nearby point older than some far-away point.
+    boolean returned = false;
+    if (hasCurrent) {
+      double farthestSince = 0.0;
+      for (int i = window.length - 1; i >= 0 && !returned; i--) {
+        KnownLocation p = window[i];
+        if (p.latitude() == null || p.longitude() == null) continue;
+        double d = haversineKm(lat, lon, p.latitude(), p.longitude());
+        if (d <= ORIGIN_RADIUS_KM && farthestSince > AWAY_DISTANCE_KM) returned = true;
+        farthestSince = Math.max(farthestSince, d);
+      }
+    }
+
+    double spanMinutes = first == null ? 0.0 : Math.max(0.0, Duration.between(first, now).toMillis() / 60_000.0);
+    return new TravelPattern(hops, maxSpeed, maxRecent, countries.size(), returned, spanMinutes);
+  }
+
+  /**
+   * Speed of one hop, 0 when it shows no measurable movement. The interval is floored at {@link #MIN_HOP_INTERVAL},
+   * so a same-instant jump between distant places is the fastest hop there is, not one that is ignored.
+   */
+  private static double hopSpeedKmh(double lat1, double lon1, OffsetDateTime t1, double lat2, double lon2, OffsetDateTime t2) {
+    double km = haversineKm(lat1, lon1, lat2, lon2);
+    if (km < MIN_HOP_KM) return 0.0;
+    long millis = Math.max(Duration.between(t1, t2).toMillis(), MIN_HOP_INTERVAL.toMillis());
+    return km / (millis / (1000.0 * 60.0 * 60.0));
+  }
+
   public Optional<Geolocation> lastForUser(String userId) {
     return geos.findTopByUserIdOrderByCreatedAtDesc(userId);
   }
@@ -167,7 +287,7 @@ public class ImpossibleTravelService {
   }
 
   /** Haversine distance in KM. */
-  private double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+  static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
     final double R = 6371.0;
     double dLat = Math.toRadians(lat2 - lat1);
     double dLon = Math.toRadians(lon2 - lon1);
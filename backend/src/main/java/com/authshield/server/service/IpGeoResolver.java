@@ -0,0 +1,125 @@
+package com.authshield.server.service;
+
+import com.authshield.server.dto.geo.ImpossibleTravelRequest;
+import com.authshield.server.model.Geolocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Server-side IP -> location lookup backed by a local {@link IpRangeTable}.
+ *
+ * If a CSV source is configured and is newer than the binary table (or the table doesn't exist), it is
+ * compiled first. Both files are checked for changes on a fixed delay and the table is swapped atomically, so
+ * a new database can be dropped in without a restart. With no file configured every lookup simply misses.
+ */
+@Component
+public class IpGeoResolver {
+
+  private static final Logger log = LoggerFactory.getLogger(IpGeoResolver.class);
+
+  private final Path table;
+  private final Path csv;
+  private volatile IpRangeTable current;
+  private volatile FileTime loadedTableTime;
+
+  public IpGeoResolver(@Value("${authshield.geo.ip-db.path:}") String table,
+                       @Value("${authshield.geo.ip-db.csv:}") String csv) {
+    this.table = table.isBlank() ? null : Path.of(table);
+    this.csv = csv.isBlank() ? null : Path.of(csv);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    reloadIfChanged();
+  }
+
+  @Scheduled(fixedDelayString = "${authshield.geo.ip-db.reload-check-ms:60000}")
+  public void reloadIfChanged() {
+    if (table == null) return;
+    try {
+      if (csv != null && Files.exists(csv)
+          && (!Files.exists(table) || Files.getLastModifiedTime(csv).compareTo(Files.getLastModifiedTime(table)) > 0)) {
+        int n = IpRangeTable.compile(csv, table);
+        log.info("Compiled {} IP ranges from {} into {}", n, csv, table);
+      }
+      if (!Files.exists(table)) return;
+      FileTime mtime = Files.getLastModifiedTime(table);
+      if (current != null && mtime.equals(loadedTableTime)) return;
+      reload();
+    } catch (Exception e) {
+      log.warn("IP geo database reload failed; keeping the previous table", e);
+    }
+  }
+
+  /** Re-opens the table unconditionally. Returns the number of ranges loaded. */
+  public synchronized int reload() throws Exception {
+    if (table == null) throw new IllegalStateException("authshield.geo.ip-db.path is not configured");
+    FileTime mtime = Files.getLastModifiedTime(table);
+    IpRangeTable t = IpRangeTable.open(table);
+    current = t;
+    loadedTableTime = mtime;
+    log.info("IP geo database loaded: {} ranges from {}", t.size(), table);
+    return t.size();
+  }
+
+  /** True if {@code ip} falls in a known range. */
+  public boolean covers(String ip) {
+    IpRangeTable t = current;
+    return t != null && t.find(IpRangeTable.parseIpv4(ip)) >= 0;
+  }
+
+  /**
+   * Fills latitude/longitude (and city/country if absent) from the request's IP when the client didn't send
+   * coordinates. Returns whether the request has coordinates afterwards.
+   */
+  public boolean fillMissing(ImpossibleTravelRequest req) {
+    if (req.latitude != null && req.longitude != null) return true;
+    IpRangeTable t = current;
+    if (t == null) return false;
+    int r = t.find(IpRangeTable.parseIpv4(req.ipAddress));
+    if (r < 0) return false;
+    req.latitude = t.latitude(r);
+    req.longitude = t.longitude(r);
+    if (req.city == null || req.city.isBlank()) req.city = t.city(r);
+    if (req.country == null || req.country.isBlank()) req.country = t.country(r);
+    return true;
+  }
+
+  /** Sets the proxy/VPN/Tor/datacenter flags and missing place names on {@code g} from its IP. */
+  public void annotate(Geolocation g) {
+    IpRangeTable t = current;
+    if (t == null) return;
+    int r = t.find(IpRangeTable.parseIpv4(g.getIpAddress()));
+    if (r < 0) return;
+    int flags = t.flags(r);
+    g.setIsProxy((flags & IpRangeTable.FLAG_PROXY) != 0);
+    g.setIsVpn((flags & IpRangeTable.FLAG_VPN) != 0);
+    g.setIsTor((flags & IpRangeTable.FLAG_TOR) != 0);
+    g.setIsDatacenter((flags & IpRangeTable.FLAG_DATACENTER) != 0);
+    if (g.getCountryCode() == null) g.setCountryCode(t.countryCode(r));
+    if (g.getRegion() == null) g.setRegion(t.region(r));
+    if (g.getCity() == null) g.setCity(t.city(r));
+    if (g.getCountry() == null) g.setCountry(t.country(r));
+  }
+
+  public Map<String,Object> stats() {
+    IpRangeTable t = current;
+    Map<String,Object> out = new HashMap<>();
+    out.put("loaded", t != null);
+    out.put("ranges", t == null ? 0 : t.size());
+    out.put("path", table == null ? null : table.toString());
+    out.put("loadedFileTime", loadedTableTime == null ? null : loadedTableTime.toString());
+    return out;
+  }
+}
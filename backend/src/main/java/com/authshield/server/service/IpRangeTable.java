@@ -0,0 +1,278 @@
+package com.authshield.server.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only IPv4 range -> location table, memory-mapped from a compact binary file.
+ *
+ * <pre>
+ * header    magic "ASIP", version, rangeCount, locationCount        (4 x int32)
+ * ranges    rangeCount x {start, end, lat(f32), lon(f32), location, flags}, sorted by start, non-overlapping
+ * locations locationCount x {countryCode, country, region, city}   (int32 offsets into the string pool, -1 = none)
+ * strings   u16 length + UTF-8 bytes each
+ * </pre>
+ *
+ * Range lookups are a binary search over the mapped buffer and allocate nothing. Location strings are decoded
+ * once at open time (there are far fewer distinct locations than ranges), so accessors return shared instances.
+ */
+final class IpRangeTable {
+
+  static final int FLAG_PROXY = 1;
+  static final int FLAG_VPN = 1 << 1;
+  static final int FLAG_TOR = 1 << 2;
+  static final int FLAG_DATACENTER = 1 << 3;
+
+  private static final int MAGIC = 0x41534950; // "ASIP"
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 16;
+  private static final int RANGE_BYTES = 24;
+  private static final int LOCATION_BYTES = 16;
+
+  private final ByteBuffer ranges;
+  private final int count;
+  private final String[] countryCodes;
+  private final String[] countries;
+  private final String[] regions;
+  private final String[] cities;
+
+  private IpRangeTable(ByteBuffer ranges, int count, String[] countryCodes, String[] countries, String[] regions, String[] cities) {
+    this.ranges = ranges;
+    this.count = count;
+    this.countryCodes = countryCodes;
+    this.countries = countries;
+    this.regions = regions;
+    this.cities = cities;
+  }
+
+  static IpRangeTable open(Path bin) throws IOException {
+    MappedByteBuffer buf;
+    try (FileChannel ch = FileChannel.open(bin, StandardOpenOption.READ)) {
+      buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+    }
+    buf.order(ByteOrder.BIG_ENDIAN);
+    if (buf.limit() < HEADER_BYTES || buf.getInt(0) != MAGIC) throw new IOException("Not an IP range table: " + bin);
+    if (buf.getInt(4) != VERSION) throw new IOException("Unsupported IP range table version " + buf.getInt(4) + ": " + bin);
+    int count = buf.getInt(8);
+    int locations = buf.getInt(12);
+
+    int locBase = HEADER_BYTES + count * RANGE_BYTES;
+    int poolBase = locBase + locations * LOCATION_BYTES;
+    if (count < 0 || locations < 0 || poolBase > buf.limit()) throw new IOException("Truncated IP range table: " + bin);
+
+    Map<Integer, String> pool = new HashMap<>();
+    String[] codes = new String[locations], countries = new String[locations], regions = new String[locations], cities = new String[locations];
+    for (int i = 0; i < locations; i++) {
+      int at = locBase + i * LOCATION_BYTES;
+      codes[i] = string(buf, poolBase, buf.getInt(at), pool);
+      countries[i] = string(buf, poolBase, buf.getInt(at + 4), pool);
+      regions[i] = string(buf, poolBase, buf.getInt(at + 8), pool);
+      cities[i] = string(buf, poolBase, buf.getInt(at + 12), pool);
+    }
+    ByteBuffer ranges = buf.slice(HEADER_BYTES, count * RANGE_BYTES).order(ByteOrder.BIG_ENDIAN);
+    return new IpRangeTable(ranges, count, codes, countries, regions, cities);
+  }
+
+  private static String string(ByteBuffer buf, int poolBase, int offset, Map<Integer, String> pool) {
+    if (offset < 0) return null;
+    return pool.computeIfAbsent(offset, o -> {
+      int at = poolBase + o;
+      int len = Short.toUnsignedInt(buf.getShort(at));
+      byte[] bytes = new byte[len];
+      buf.get(at + 2, bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    });
+  }
+
+  int size() { return count; }
+
+  /** Index of the range containing {@code ip} (unsigned IPv4 in a long), or -1. */
+  int find(long ip) {
+    if (ip < 0) return -1;
+    int lo = 0, hi = count - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      long start = Integer.toUnsignedLong(ranges.getInt(mid * RANGE_BYTES));
+      if (start <= ip) lo = mid + 1;
+      else hi = mid - 1;
+    }
+    if (hi < 0) return -1;
+    long end = Integer.toUnsignedLong(ranges.getInt(hi * RANGE_BYTES + 4));
+    return ip <= end ? hi : -1;
+  }
+
+  double latitude(int r) { return ranges.getFloat(r * RANGE_BYTES + 8); }
+  double longitude(int r) { return ranges.getFloat(r * RANGE_BYTES + 12); }
+  int flags(int r) { return ranges.getInt(r * RANGE_BYTES + 20); }
+  String countryCode(int r) { return countryCodes[location(r)]; }
+  String country(int r) { return countries[location(r)]; }
+  String region(int r) { return regions[location(r)]; }
+  String city(int r) { return cities[location(r)]; }
+
+  private int location(int r) { return ranges.getInt(r * RANGE_BYTES + 16); }
+
+  /** Parses a dotted-quad IPv4 address without allocating; -1 if it isn't one (IPv6 included). */
+  static long parseIpv4(String s) {
+    if (s == null) return -1;
+    int len = s.length();
+    long ip = 0;
+    int octet = -1, dots = 0;
+    for (int i = 0; i < len; i++) {
+      char c = s.charAt(i);
+      if (c >= '0' && c <= '9') {
+        octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+        if (octet > 255) return -1;
+      } else if (c == '.' && octet >= 0 && dots < 3) {
+        ip = (ip << 8) | octet;
+        octet = -1;
+        dots++;
+      } else {
+        return -1;
+      }
+    }
+    if (dots != 3 || octet < 0) return -1;
+    return (ip << 8) | octet;
+  }
+
+  /**
+   * Converts a CSV export to the binary format, writing to a temp file and moving it into place so readers of
+   * the previous file are never exposed to a partial write. Expected columns (header row optional):
+   * {@code start_ip,end_ip,country_code,country,region,city,latitude,longitude,is_proxy,is_vpn,is_tor,is_datacenter}.
+   * Returns the number of ranges written.
+   */
+  static int compile(Path csv, Path bin) throws IOException {
+    record Range(long start, long end, float lat, float lon, int location, int flags) {}
+
+    List<Range> ranges = new ArrayList<>();
+    Map<List<String>, Integer> locationIds = new HashMap<>();
+    List<List<String>> locations = new ArrayList<>();
+    try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+      String line;
+      int lineNo = 0;
+      while ((line = in.readLine()) != null) {
+        lineNo++;
+        if (line.isBlank() || line.startsWith("#")) continue;
+        List<String> f = splitCsv(line);
+        long start = parseIpv4(f.get(0).trim());
+        if (start < 0 && lineNo == 1) continue; // header
+        long end = f.size() > 1 ? parseIpv4(f.get(1).trim()) : -1;
+        if (start < 0 || end < start || f.size() < 8) throw new IOException("Bad IP range at " + csv + ":" + lineNo);
+        List<String> loc = List.of(f.get(2).trim(), f.get(3).trim(), f.get(4).trim(), f.get(5).trim());
+        int location = locationIds.computeIfAbsent(loc, k -> { locations.add(k); return locations.size() - 1; });
+        int flags = (flag(f, 8) ? FLAG_PROXY : 0) | (flag(f, 9) ? FLAG_VPN : 0)
+          | (flag(f, 10) ? FLAG_TOR : 0) | (flag(f, 11) ? FLAG_DATACENTER : 0);
+        ranges.add(new Range(start, end, Float.parseFloat(f.get(6).trim()), Float.parseFloat(f.get(7).trim()), location, flags));
+      }
+    }
+    ranges.sort((a, b) -> Long.compare(a.start(), b.start()));
+    for (int i = 1; i < ranges.size(); i++) {
+      if (ranges.get(i).start() <= ranges.get(i - 1).end()) {
+        throw new IOException("Overlapping IP ranges in " + csv + " at " + ipv4(ranges.get(i).start()));
+      }
+    }
+
+    Map<String, Integer> offsets = new HashMap<>();
+    ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    int[][] locOffsets = new int[locations.size()][4];
+    for (int i = 0; i < locations.size(); i++) {
+      for (int j = 0; j < 4; j++) {
+        String v = locations.get(i).get(j);
+        if (v.isEmpty()) {
+          locOffsets[i][j] = -1;
+          continue;
+        }
+        Integer off = offsets.get(v);
+        if (off == null) {
+          byte[] b = v.getBytes(StandardCharsets.UTF_8);
+          if (b.length > 0xFFFF) throw new IOException("Location name too long in " + csv);
+          off = pool.size();
+          pool.write(b.length >>> 8);
+          pool.write(b.length);
+          pool.write(b);
+          offsets.put(v, off);
+        }
+        locOffsets[i][j] = off;
+      }
+    }
+
+    Path tmp = Files.createTempFile(bin.toAbsolutePath().getParent(), bin.getFileName().toString(), ".tmp");
+    try (OutputStream os = Files.newOutputStream(tmp);
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(ranges.size());
+      out.writeInt(locations.size());
+      for (Range r : ranges) {
+        out.writeInt((int) r.start());
+        out.writeInt((int) r.end());
+        out.writeFloat(r.lat());
+        out.writeFloat(r.lon());
+        out.writeInt(r.location());
+        out.writeInt(r.flags());
+      }
+      for (int[] l : locOffsets) for (int o : l) out.writeInt(o);
+      pool.writeTo(out);
+    } catch (IOException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+    Files.move(tmp, bin, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return ranges.size();
+  }
+
+  private static boolean flag(List<String> f, int i) {
+    if (i >= f.size()) return false;
+    String v = f.get(i).trim();
+    return v.equals("1") || v.equalsIgnoreCase("true") || v.equalsIgnoreCase("t") || v.equalsIgnoreCase("yes");
+  }
+
+  /** Splits one CSV line, honouring double-quoted fields ("" escapes a quote). */
+  private static List<String> splitCsv(String line) {
+    List<String> out = new ArrayList<>();
+    StringBuilder cur = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          cur.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          cur.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        out.add(cur.toString());
+        cur.setLength(0);
+      } else {
+        cur.append(c);
+      }
+    }
+    out.add(cur.toString());
+    return out;
+  }
+
+  private static String ipv4(long ip) {
+    return ((ip >>> 24) & 255) + "." + ((ip >>> 16) & 255) + "." + ((ip >>> 8) & 255) + "." + (ip & 255);
+  }
+}
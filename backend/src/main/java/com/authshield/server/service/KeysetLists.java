@@ -0,0 +1,159 @@
+package com.authshield.server.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Shared plumbing for the list endpoints: keyset pages and NDJSON streams.
+ *
+ * Lists are ordered newest first on a timestamp with the id as tie-breaker, and a page continues strictly after
+ * the last row of the previous one, so each page is an index range scan (V9) however deep the client pages.
+ * The cursor for the next page is returned in {@value #NEXT_CURSOR_HEADER} (absent on the last page) and the
+ * body stays a plain JSON array. Rows whose timestamp moves while a client pages (e.g. a device seen again) may
+ * be skipped or repeated.
+ *
+ * Lists return a summary projection by default; {@code ?fields=full} returns whole rows including the heavy
+ * jsonb/array columns.
+ *
+ * {@code ?format=ndjson} writes the whole list as one JSON object per line instead. The repository stream runs
+ * in a read-only transaction, where the PostgreSQL driver reads through a server-side cursor with the finder's
+ * fetch size; the persistence context is cleared as rows are written, so memory stays at one fetch batch.
+ */
+@Service
+public class KeysetLists {
+
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  public static final String NDJSON = "application/x-ndjson";
+  /** Matches the repositories' stream fetch size. */
+  private static final int CLEAR_EVERY = 500;
+
+  /** Position of the last row of a page. */
+  public record Cursor(OffsetDateTime at, String id) {}
+
+  /** A repository's "page after cursor" finder. */
+  @FunctionalInterface
+  public interface PageAfter<T> {
+    List<T> find(OffsetDateTime at, String id, Pageable page);
+  }
+
+  private final TransactionTemplate readOnlyTx;
+  private final EntityManager em;
+  private final ObjectMapper om;
+  private final int defaultLimit;
+  private final int maxLimit;
+
+  public KeysetLists(TransactionTemplate tx,
+                     EntityManager em,
+                     ObjectMapper om,
+                     @Value("${authshield.lists.default-limit:200}") int defaultLimit,
+                     @Value("${authshield.lists.max-limit:1000}") int maxLimit) {
+    this.readOnlyTx = new TransactionTemplate(tx.getTransactionManager());
+    this.readOnlyTx.setReadOnly(true);
+    this.em = em;
+    this.om = om;
+    this.maxLimit = Math.max(1, maxLimit);
+    this.defaultLimit = Math.min(Math.max(1, defaultLimit), this.maxLimit);
+  }
+
+  /**
+   * One page: {@code first} when there is no {@code ?after=} cursor, {@code next} otherwise. The page is a JSON
+   * array, with the next cursor header when it came back full.
+   */
+  public <T> ResponseEntity<List<T>> page(Integer limit, String after,
+                                          Function<Pageable, List<T>> first, PageAfter<T> next,
+                                          Function<T, OffsetDateTime> at, Function<T, String> id) {
+    int n = limit(limit);
+    Cursor cursor = decode(after);
+    List<T> rows = cursor == null
+      ? first.apply(PageRequest.ofSize(n))
+      : next.find(cursor.at(), cursor.id(), PageRequest.ofSize(n));
+
+    ResponseEntity.BodyBuilder res = ResponseEntity.ok();
+    if (rows.size() >= n && !rows.isEmpty()) {
+      T last = rows.get(rows.size() - 1);
+      res.header(NEXT_CURSOR_HEADER, encode(at.apply(last), id.apply(last)));
+    }
+    return res.body(rows);
+  }
+
+  /** {@code ?fields=}: {@code summary} (the default) or {@code full}. */
+  public boolean full(String fields) {
+    if (fields == null || fields.isBlank() || fields.equals("summary")) return false;
+    if (fields.equals("full")) return true;
+    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fields must be summary or full");
+  }
+
+  /** Page size for {@code ?limit=}: the default when absent, capped at {@code max-limit}. */
+  int limit(Integer requested) {
+    if (requested == null) return defaultLimit;
+    if (requested < 1) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+    return Math.min(requested, maxLimit);
+  }
+
+  /** Decodes {@code ?after=}; null when absent (first page). */
+  static Cursor decode(String after) {
+    if (after == null || after.isBlank()) return null;
+    try {
+      String s = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+      int sep = s.indexOf('|');
+      if (sep <= 0 || sep == s.length() - 1) throw new IllegalArgumentException();
+      return new Cursor(OffsetDateTime.ofInstant(Instant.parse(s.substring(0, sep)), ZoneOffset.UTC), s.substring(sep + 1));
+    } catch (RuntimeException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+    }
+  }
+
+  public static String encode(OffsetDateTime at, String id) {
+    String s = at.toInstant() + "|" + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(s.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Writes every row of {@code query} to the response as NDJSON. */
+  public <T> void stream(HttpServletResponse response, Supplier<Stream<T>> query) throws IOException {
+    response.setContentType(NDJSON);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    OutputStream out = response.getOutputStream();
+    try {
+      readOnlyTx.executeWithoutResult(status -> {
+        try (Stream<T> rows = query.get()) {
+          Iterator<T> it = rows.iterator();
+          for (long n = 1; it.hasNext(); n++) {
+            out.write(om.writeValueAsBytes(it.next()));
+            out.write('\n');
+            // Entity rows stay attached until cleared; projections never are, so this is cheap either way.
+            if (n % CLEAR_EVERY == 0) em.clear();
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      // Usually the client hung up mid-stream.
+      throw e.getCause();
+    }
+    out.flush();
+  }
+}
@@ -0,0 +1,113 @@
+package com.authshield.server.service;
+
+import com.authshield.server.model.Geolocation;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Size-bounded cache of each user's most recent locations, keyed by userId.
+ *
+ * Each user has a fixed-size {@link Window} (oldest entries fall off) that is appended to whenever a
+ * geolocation is recorded. A miss loads the newest {@code window-size} rows through the (user_id, created_at)
+ * index; a user with no locations yet is cached as an empty window.
+ */
+@Component
+public class LocationHistoryCache {
+
+  /** The subset of a {@link Geolocation} the travel checks need. */
+  public record KnownLocation(Double latitude, Double longitude, OffsetDateTime at,
+                              String ipAddress, String city, String country) {
+
+    static KnownLocation of(Geolocation g) {
+      return new KnownLocation(g.getLatitude(), g.getLongitude(), g.getCreatedAt(), g.getIpAddress(), g.getCity(), g.getCountry());
+    }
+  }
+
+  /** Ring buffer of a user's locations, kept in timestamp order. */
+  public static final class Window {
+    private final KnownLocation[] ring;
+    private int head;  // next write position
+    private int size;
+
+    Window(int capacity) {
+      this.ring = new KnownLocation[capacity];
+    }
+
+    /**
+     * Appends {@code loc}. Late arrivals are moved back into timestamp order; one older than everything in a
+     * full window is dropped.
+     */
+    synchronized void add(KnownLocation loc) {
+      int cap = ring.length;
+      if (size == cap && isBefore(loc, ring[head])) return;
+      ring[head] = loc;
+      int i = head;
+      head = (head + 1) % cap;
+      if (size < cap) size++;
+      for (int n = 1; n < size; n++) {
+        int prev = (i - 1 + cap) % cap;
+        if (!isBefore(ring[i], ring[prev])) break;
+        KnownLocation t = ring[prev];
+        ring[prev] = ring[i];
+        ring[i] = t;
+        i = prev;
+      }
+    }
+
+    /** Oldest-first copy of the window. */
+    public synchronized KnownLocation[] snapshot() {
+      KnownLocation[] out = new KnownLocation[size];
+      int start = (head - size + ring.length) % ring.length;
+      for (int n = 0; n < size; n++) out[n] = ring[(start + n) % ring.length];
+      return out;
+    }
+
+    private static boolean isBefore(KnownLocation a, KnownLocation b) {
+      return a.at() != null && b.at() != null && a.at().isBefore(b.at());
+    }
+  }
+
+  private final Cache<String, Window> cache;
+  private final int windowSize;
+
+  public LocationHistoryCache(@Value("${authshield.geo.location-history.max-users:100000}") long maxUsers,
+                              @Value("${authshield.geo.location-history.ttl:30m}") Duration ttl,
+                              @Value("${authshield.geo.location-history.window-size:16}") int windowSize) {
+    this.windowSize = Math.max(1, windowSize);
+    this.cache = Caffeine.newBuilder()
+      .maximumSize(maxUsers)
+      .expireAfterWrite(ttl)
+      .build();
+  }
+
+  /** The user's window; {@code loader(userId, limit)} must return the newest locations first. */
+  public Window get(String userId, BiFunction<String, Integer, List<Geolocation>> loader) {
+    return cache.get(userId, id -> {
+      Window w = new Window(windowSize);
+      List<Geolocation> newestFirst = loader.apply(id, windowSize);
+      for (int i = newestFirst.size() - 1; i >= 0; i--) w.add(KnownLocation.of(newestFirst.get(i)));
+      return w;
+    });
+  }
+
+  /**
+   * Appends a newly saved location to the user's window if it is cached. Uncached users are left alone: their
+   * next lookup loads the row from the DB along with the rest of their history.
+   */
+  public void record(Geolocation g) {
+    if (g == null || g.getUserId() == null) return;
+    Window w = cache.getIfPresent(g.getUserId());
+    if (w != null) w.add(KnownLocation.of(g));
+  }
+
+  public long size() {
+    return cache.estimatedSize();
+  }
+}
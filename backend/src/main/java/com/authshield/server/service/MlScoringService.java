@@ -7,53 +7,104 @@ import com.authshield.server.model.TlsFingerprint;
 import com.authshield.server.repo.BehavioralPatternRepository;
 import com.authshield.server.repo.DeviceProfileRepository;
 import com.authshield.server.repo.TlsFingerprintRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 @Service
 public class MlScoringService {
 
+  /** Trust given to a device the user has never been seen on; also the fallback when the device leg is degraded. */
+  static final double UNKNOWN_DEVICE_TRUST = 0.3;
+  /** Behavioral trust when the pattern or baseline leg is degraded: the anomaly line, never better. */
+  static final double DEGRADED_BEHAVIORAL_TRUST = 0.5;
+
+  public static final String LEG_DEVICE = "device";
+  public static final String LEG_TLS = "tls";
+  public static final String LEG_PATTERN = "behavioralPattern";
+  public static final String LEG_BASELINE = "baseline";
+
   private final BehavioralPatternRepository behaviors;
   private final DeviceProfileRepository devices;
   private final TlsFingerprintRepository tls;
+  private final BehavioralBaselineService baselines;
+  private final BaselineCache baselineCache;
+  private final TlsTrustIndex tlsTrust;
+
+  /**
+   * When non-null, fetchSignals runs its device/TLS/pattern/baseline lookups concurrently on virtual
+   * threads, bounded by {@link #lookupDeadline}. Legs answered by BaselineCache or TlsTrustIndex stay in memory.
+   * A leg that has to query borrows its own pooled connection, so at most {@link #legPermits} queries run at
+   * once, each in a read-only transaction whose {@code statement_timeout} equals the deadline so a late query
+   * is aborted server-side rather than left holding its connection.
+   */
+  private final ExecutorService lookupExecutor;
+  private final Duration lookupDeadline;
+  private final Semaphore legPermits;
+  private final TransactionTemplate legTx;
+  private final JdbcTemplate jdbc;
 
   public MlScoringService(BehavioralPatternRepository behaviors,
                           DeviceProfileRepository devices,
-                          TlsFingerprintRepository tls) {
+                          TlsFingerprintRepository tls,
+                          BehavioralBaselineService baselines,
+                          BaselineCache baselineCache,
+                          TlsTrustIndex tlsTrust,
+                          TransactionTemplate tx,
+                          JdbcTemplate jdbc,
+                          @Value("${authshield.ml.parallel-lookups.enabled:false}") boolean parallelLookups,
+                          @Value("${authshield.ml.parallel-lookups.deadline:250ms}") Duration lookupDeadline,
+                          @Value("${authshield.ml.parallel-lookups.max-concurrent-legs:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrentLegs) {
     this.behaviors = behaviors;
     this.devices = devices;
     this.tls = tls;
+    this.baselines = baselines;
+    this.baselineCache = baselineCache;
+    this.tlsTrust = tlsTrust;
+    this.lookupExecutor = parallelLookups ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    this.lookupDeadline = lookupDeadline;
+    this.legPermits = new Semaphore(Math.max(1, maxConcurrentLegs));
+    if (parallelLookups) {
+      this.legTx = new TransactionTemplate(tx.getTransactionManager());
+      this.legTx.setReadOnly(true);
+    } else {
+      this.legTx = null;
+    }
+    this.jdbc = jdbc;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (lookupExecutor != null) lookupExecutor.shutdownNow();
   }
 
   public BaselineProfile getUserBaseline(String userId) {
-    List<BehavioralPattern> patterns = behaviors.findByUserIdOrderByCreatedAtDesc(userId);
-    if (patterns.size() < 3) return null;
-
-    List<Double> avgMouseSpeeds = collect(patterns, BehavioralPattern::getAvgMouseSpeed);
-    List<Double> avgMouseAccelerations = collect(patterns, BehavioralPattern::getAvgMouseAcceleration);
-    List<Double> avgKeyHoldTimes = collect(patterns, BehavioralPattern::getAvgKeyHoldTime);
-    List<Double> avgFlightTimes = collect(patterns, BehavioralPattern::getAvgFlightTime);
-    List<Double> typingSpeeds = collect(patterns, BehavioralPattern::getTypingSpeed);
-    List<Double> straightLineRatios = collect(patterns, BehavioralPattern::getStraightLineRatio);
-    List<Double> curveComplexities = collect(patterns, BehavioralPattern::getCurveComplexity);
-
-    BaselineProfile p = new BaselineProfile();
-    p.avgMouseSpeed = metric(avgMouseSpeeds);
-    p.avgMouseAcceleration = metric(avgMouseAccelerations);
-    p.avgKeyHoldTime = metric(avgKeyHoldTimes);
-    p.avgFlightTime = metric(avgFlightTimes);
-    p.typingSpeed = metric(typingSpeeds);
-    p.straightLineRatio = metric(straightLineRatios);
-    p.curveComplexity = metric(curveComplexities);
-    return p;
+    return baselineCache.get(userId, baselines::load);
   }
 
   public AnomalyResult scoreCurrentBehavior(String userId, Map<String,Object> currentBehavior) {
-    BaselineProfile baseline = getUserBaseline(userId);
+    return scoreCurrentBehavior(userId, BehaviorVector.fromMap(currentBehavior));
+  }
+
+  public AnomalyResult scoreCurrentBehavior(String userId, BehaviorVector currentBehavior) {
+    return scoreAgainstBaseline(getUserBaseline(userId), currentBehavior);
+  }
 
+  /**
+   * Scores behavior against an already-loaded baseline (null means insufficient history).
+   *
+   * The math runs over the feature arrays without boxing; only the explainability output
+   * ({@link AnomalyResult#anomalyFactors}) allocates per factor.
+   */
+  public AnomalyResult scoreAgainstBaseline(BaselineProfile baseline, BehaviorVector currentBehavior) {
     // Mirror Node behavior: if insufficient baseline, return low-confidence "step_up" response.
     if (baseline == null) {
       AnomalyResult r = new AnomalyResult();
@@ -64,46 +115,32 @@ public class MlScoringService {
       return r;
     }
 
-    Map<String, Double> weights = Map.of(
-      "avgMouseSpeed", 0.20,
-      "avgMouseAcceleration", 0.15,
-      "avgKeyHoldTime", 0.20,
-      "avgFlightTime", 0.15,
-      "typingSpeed", 0.20,
-      "straightLineRatio", 0.05,
-      "curveComplexity", 0.05
-    );
-
     AnomalyResult out = new AnomalyResult();
 
     double totalAnomalyScore = 0.0;
     double totalWeight = 0.0;
-
-    // Map the incoming request keys to baseline features (same as ml-scoring.ts)
-    totalAnomalyScore += checkFactor(out, "avgMouseSpeed", toDouble(currentBehavior.get("mouseVelocity")), baseline.avgMouseSpeed, weights.get("avgMouseSpeed"));
-    totalWeight += (currentBehavior.get("mouseVelocity") != null ? weights.get("avgMouseSpeed") : 0.0);
-
-    totalAnomalyScore += checkFactor(out, "avgMouseAcceleration", toDouble(currentBehavior.get("mouseAcceleration")), baseline.avgMouseAcceleration, weights.get("avgMouseAcceleration"));
-    totalWeight += (currentBehavior.get("mouseAcceleration") != null ? weights.get("avgMouseAcceleration") : 0.0);
-
-    totalAnomalyScore += checkFactor(out, "avgKeyHoldTime", toDouble(currentBehavior.get("dwellTime")), baseline.avgKeyHoldTime, weights.get("avgKeyHoldTime"));
-    totalWeight += (currentBehavior.get("dwellTime") != null ? weights.get("avgKeyHoldTime") : 0.0);
-
-    totalAnomalyScore += checkFactor(out, "avgFlightTime", toDouble(currentBehavior.get("flightTime")), baseline.avgFlightTime, weights.get("avgFlightTime"));
-    totalWeight += (currentBehavior.get("flightTime") != null ? weights.get("avgFlightTime") : 0.0);
-
-    totalAnomalyScore += checkFactor(out, "typingSpeed", toDouble(currentBehavior.get("typingSpeed")), baseline.typingSpeed, weights.get("typingSpeed"));
-    totalWeight += (currentBehavior.get("typingSpeed") != null ? weights.get("typingSpeed") : 0.0);
-
-    // straightLineRatio/curveComplexity are part of baseline, but currentBehavior payload doesn't provide them
-    // in the current client implementation. We keep parity with Node: only check if present.
-    if (currentBehavior.get("straightLineRatio") != null) {
-      totalAnomalyScore += checkFactor(out, "straightLineRatio", toDouble(currentBehavior.get("straightLineRatio")), baseline.straightLineRatio, weights.get("straightLineRatio"));
-      totalWeight += weights.get("straightLineRatio");
-    }
-    if (currentBehavior.get("curveComplexity") != null) {
-      totalAnomalyScore += checkFactor(out, "curveComplexity", toDouble(currentBehavior.get("curveComplexity")), baseline.curveComplexity, weights.get("curveComplexity"));
-      totalWeight += weights.get("curveComplexity");
+    double maxAbsDev = 0.0;
+    int anomalyCount = 0;
+
+    // Same feature order and weights as ml-scoring.ts. A supplied feature always counts towards the weight;
+    // it only contributes a factor when it parsed and the baseline mean is non-zero.
+    if (currentBehavior != null) {
+      for (int i = 0; i < BehaviorFeature.COUNT; i++) {
+        if (!currentBehavior.has(i)) continue;
+        BehaviorFeature f = BehaviorFeature.at(i);
+        totalWeight += f.weight;
+
+        double value = currentBehavior.get(i);
+        double mean = baseline.mean[i];
+        if (Double.isNaN(value) || mean == 0) continue;
+
+        double z = calculateZScore(value, mean, baseline.stdDev[i]);
+        totalAnomalyScore += zScoreToAnomalyProbability(z) * f.weight;
+        maxAbsDev = Math.max(maxAbsDev, z);
+        boolean anomalous = z > 2;
+        if (anomalous) anomalyCount++;
+        out.anomalyFactors.add(new AnomalyFactor(f.factorName, value, mean, z, anomalous));
+      }
     }
 
     double normalizedAnomalyScore = totalWeight > 0 ? totalAnomalyScore / totalWeight : 0.0;
@@ -112,10 +149,6 @@ public class MlScoringService {
     // Parity fields used by some UI components and for debugging.
     out.anomalyProbability = clamp01(normalizedAnomalyScore);
     // Use the max absolute deviation as a single headline z-score.
-    double maxAbsDev = 0.0;
-    for (AnomalyFactor f : out.anomalyFactors) {
-      maxAbsDev = Math.max(maxAbsDev, Math.abs(f.deviation));
-    }
     out.zScore = maxAbsDev;
     // Severity is a simple bucket on anomalyProbability.
     if (out.anomalyProbability >= 0.90) out.severity = "critical";
@@ -123,7 +156,6 @@ public class MlScoringService {
     else if (out.anomalyProbability >= 0.55) out.severity = "medium";
     else out.severity = "low";
 
-    long anomalyCount = out.anomalyFactors.stream().filter(f -> f.isAnomaly).count();
     boolean isAnomaly = normalizedAnomalyScore > 0.5 || anomalyCount >= 3;
 
     String confidence;
@@ -146,9 +178,10 @@ public class MlScoringService {
   public double computeDeviceRisk(String userId, String currentDeviceId) {
     List<DeviceProfile> userDevices = devices.findByUserIdOrderByLastSeenDesc(userId);
     Optional<DeviceProfile> currentDevice = userDevices.stream().filter(d -> Objects.equals(d.getId(), currentDeviceId)).findFirst();
-    if (currentDevice.isEmpty()) return 0.3;
+    return currentDevice.map(MlScoringService::deviceTrust).orElse(UNKNOWN_DEVICE_TRUST);
+  }
 
-    DeviceProfile d = currentDevice.get();
+  private static double deviceTrust(DeviceProfile d) {
     int seenCount = d.getSeenCount() != null ? d.getSeenCount() : 1;
     double familiarityScore = Math.min(1.0, seenCount / 10.0);
     double trustScore = d.getTrustScore() != null ? d.getTrustScore() : 0.5;
@@ -157,177 +190,237 @@ public class MlScoringService {
   }
 
   public double computeTlsRisk(String currentFingerprint) {
-    List<TlsFingerprint> all = tls.findTop500ByOrderByLastSeenDesc();
-    for (TlsFingerprint f : all) {
-      if (Objects.equals(f.getJa3Hash(), currentFingerprint) || Objects.equals(f.getJa4Hash(), currentFingerprint)) {
-        return f.getTrustScore() != null ? clamp01(f.getTrustScore()) : 0.5;
-      }
+    return tlsTrust.trustFor(currentFingerprint);
+  }
+
+  /**
+   * Result used in place of scoring when the behavioral inputs could not be loaded in time. Trust sits at the
+   * anomaly line so a slow lookup never reads as a clean match.
+   */
+  public static AnomalyResult degradedBehavior() {
+    AnomalyResult r = new AnomalyResult();
+    r.overallScore = DEGRADED_BEHAVIORAL_TRUST;
+    r.anomalyProbability = 1.0 - DEGRADED_BEHAVIORAL_TRUST;
+    r.severity = "low";
+    r.isAnomaly = false;
+    r.confidenceLevel = "low";
+    r.recommendation = "step_up";
+    return r;
+  }
+
+  /**
+   * Everything the risk pipeline needs from storage for one request: component trust for device and TLS, the
+   * behavior vector (possibly derived from a stored pattern) and the user's baseline. Legs that failed or missed
+   * the lookup deadline hold their worst-case defaults and are named in {@code degradedLegs}.
+   */
+  public record Signals(double deviceTrust, double tlsTrust, BehaviorVector currentBehavior,
+                        BaselineProfile baseline, List<String> degradedLegs) {
+
+    /** Whether the behavior vector or baseline is missing because its lookup was degraded. */
+    public boolean behaviorDegraded() {
+      return degradedLegs.contains(LEG_PATTERN) || degradedLegs.contains(LEG_BASELINE);
     }
-    return 0.5;
   }
 
   /**
-   * Overall ML scoring used by POST /api/ml/score.
-   *
-   * Returns *trust* scores (0..1) for each component and a weighted overall score.
-   * The UI treats higher values as "better" (lower risk).
+   * Fetches the signals for one request. With {@code withBehavior} false the pattern and baseline lookups are
+   * skipped (the caller has already decided it won't score behavior).
    */
-  public ScoreResponse scoreOverall(MlScoreRequest req) {
+  public Signals fetchSignals(MlScoreRequest req, boolean withBehavior) {
     final MlScoreRequest r = (req == null) ? new MlScoreRequest() : req;
+    if (lookupExecutor != null) return fetchSignalsConcurrently(r, withBehavior);
 
     String userId = r.userId;
-    double wDevice = 0.35;
-    double wTls = 0.25;
-    double wBeh = 0.40;
 
     double deviceTrust = 0.5;
-    if (userId != null && !userId.isBlank() && r.deviceProfileId != null && !r.deviceProfileId.isBlank()) {
+    if (hasText(userId) && hasText(r.deviceProfileId)) {
       deviceTrust = computeDeviceRisk(userId, r.deviceProfileId);
     }
 
     double tlsTrust = 0.5;
-    if (r.tlsFingerprintId != null && !r.tlsFingerprintId.isBlank()) {
-      // Accept either DB id or JA3/JA4 hash-like string.
-      Optional<TlsFingerprint> byId = tls.findById(r.tlsFingerprintId);
-      if (byId.isPresent()) {
-        tlsTrust = byId.get().getTrustScore() != null ? clamp01(byId.get().getTrustScore()) : 0.5;
-      } else {
-        tlsTrust = computeTlsRisk(r.tlsFingerprintId);
-      }
+    if (hasText(r.tlsFingerprintId)) {
+      tlsTrust = tlsTrustForIdOrHash(r.tlsFingerprintId, Supplier::get);
     }
 
+    if (!withBehavior) return new Signals(deviceTrust, tlsTrust, r.currentBehavior, null, List.of());
+
     // Behavioral trust is primarily ML-derived (baseline + z-score anomalies)
-    Map<String, Object> currentBehavior = r.currentBehavior;
-
-    // If the client didn't send features but gave us a behavioralPatternId, derive a "currentBehavior" map from it.
-    if ((currentBehavior == null || currentBehavior.isEmpty())
-        && r.behavioralPatternId != null
-        && !r.behavioralPatternId.isBlank()) {
-
-      Optional<BehavioralPattern> opt = behaviors.findById(r.behavioralPatternId);
-      if (opt.isPresent()) {
-        BehavioralPattern bp = opt.get();
-
-        Map<String, Object> m = new HashMap<>();
-        if (bp.getAvgMouseSpeed() != null) m.put("mouseVelocity", bp.getAvgMouseSpeed());
-        if (bp.getAvgMouseAcceleration() != null) m.put("mouseAcceleration", bp.getAvgMouseAcceleration());
-        if (bp.getAvgKeyHoldTime() != null) m.put("dwellTime", bp.getAvgKeyHoldTime());
-        if (bp.getAvgFlightTime() != null) m.put("flightTime", bp.getAvgFlightTime());
-        if (bp.getTypingSpeed() != null) m.put("typingSpeed", bp.getTypingSpeed());
-        if (bp.getStraightLineRatio() != null) m.put("straightLineRatio", bp.getStraightLineRatio());
-        if (bp.getCurveComplexity() != null) m.put("curveComplexity", bp.getCurveComplexity());
-
-        currentBehavior = m;
-      }
+    BehaviorVector currentBehavior = r.currentBehavior;
+    if (needsPatternLookup(r)) {
+      currentBehavior = behaviors.findById(r.behavioralPatternId).map(BehaviorVector::fromPattern).orElse(currentBehavior);
     }
 
-    AnomalyResult behavioral = null;
-    double behavioralTrust = 0.75;
-    if (userId != null && !userId.isBlank()) {
-      behavioral = scoreCurrentBehavior(userId, currentBehavior == null ? Map.of() : currentBehavior);
-      behavioralTrust = behavioral.overallScore;
-    }
+    BaselineProfile baseline = hasText(userId) ? getUserBaseline(userId) : null;
+    return new Signals(deviceTrust, tlsTrust, currentBehavior, baseline, List.of());
+  }
 
-    double overall = clamp01(deviceTrust * wDevice + tlsTrust * wTls + behavioralTrust * wBeh);
+  /**
+   * Same lookups as the sequential path, fanned out so latency tracks the slowest leg rather than the sum.
+   * Legs that fail or miss the deadline are cancelled (interrupting the lookup thread), fall back to their
+   * worst-case values (an unknown device, unknown TLS, behavior at the anomaly line) and are listed as degraded.
+   */
+  private Signals fetchSignalsConcurrently(MlScoreRequest r, boolean withBehavior) {
+    String userId = r.userId;
+    long deadline = System.nanoTime() + lookupDeadline.toNanos();
+
+    Future<Double> device = (hasText(userId) && hasText(r.deviceProfileId))
+      ? leg(() -> query(() -> computeDeviceRisk(userId, r.deviceProfileId)))
+      : CompletableFuture.completedFuture(0.5);
+    Future<Double> tlsLeg = hasText(r.tlsFingerprintId)
+      ? leg(() -> tlsTrustForIdOrHash(r.tlsFingerprintId, this::query))
+      : CompletableFuture.completedFuture(0.5);
+    Future<BehaviorVector> pattern = withBehavior && needsPatternLookup(r)
+      ? leg(() -> query(() -> behaviors.findById(r.behavioralPatternId).map(BehaviorVector::fromPattern).orElse(r.currentBehavior)))
+      : CompletableFuture.completedFuture(r.currentBehavior);
+    Future<BaselineProfile> baseline = withBehavior && hasText(userId)
+      ? leg(() -> baselineCache.get(userId, id -> query(() -> baselines.load(id))))
+      : CompletableFuture.completedFuture(null);
+
+    List<String> degraded = new ArrayList<>();
+    double deviceTrust = resultOr(device, deadline, UNKNOWN_DEVICE_TRUST, LEG_DEVICE, degraded);
+    double tlsTrustValue = resultOr(tlsLeg, deadline, TlsTrustIndex.UNKNOWN_TRUST, LEG_TLS, degraded);
+    BehaviorVector currentBehavior = resultOr(pattern, deadline, r.currentBehavior, LEG_PATTERN, degraded);
+    BaselineProfile baselineProfile = resultOr(baseline, deadline, null, LEG_BASELINE, degraded);
+    return new Signals(deviceTrust, tlsTrustValue, currentBehavior, baselineProfile, degraded);
+  }
 
-    String recommendation;
-    if (overall >= 0.72) recommendation = "allow";
-    else if (overall >= 0.45) recommendation = "step_up";
-    else recommendation = "block";
+  private <T> Future<T> leg(Supplier<T> lookup) {
+    return lookupExecutor.submit(lookup::get);
+  }
 
-    String confidenceLevel;
-    if (overall >= 0.72) confidenceLevel = "high";
-    else if (overall >= 0.55) confidenceLevel = "medium";
-    else confidenceLevel = "low";
+  /**
+   * The database part of a leg, run only on a cache miss: takes a permit and a read-only transaction with the
+   * deadline as {@code statement_timeout}. The permit is taken on the leg's own thread, so a leg still queued
+   * for a connection at the deadline is interrupted out of the wait like one stuck in a query.
+   */
+  private <T> T query(Supplier<T> lookup) {
+    try {
+      legPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted waiting for a lookup connection");
+    }
+    try {
+      return legTx.execute(s -> {
+        jdbc.execute("SET LOCAL statement_timeout = " + Math.max(1, lookupDeadline.toMillis()));
+        return lookup.get();
+      });
+    } finally {
+      legPermits.release();
+    }
+  }
 
-    ScoreResponse out = new ScoreResponse();
-    out.overallScore = overall;
-    out.recommendation = recommendation;
-    out.confidenceLevel = confidenceLevel;
-
-    out.weights.put("device", wDevice);
-    out.weights.put("tls", wTls);
-    out.weights.put("behavioral", wBeh);
-
-    out.components.put("device", clamp01(deviceTrust));
-    out.components.put("tls", clamp01(tlsTrust));
-    out.components.put("behavioral", clamp01(behavioralTrust));
-
-    out.deviceScore = clamp01(deviceTrust);
-    out.tlsScore = clamp01(tlsTrust);
-    out.behavioralScore = clamp01(behavioralTrust);
-
-    // Provide a small, UI-friendly factors object (the controller may merge additional factors like impossible_travel)
-    Map<String, Object> factors = new HashMap<>();
-    if (behavioral != null) {
-      factors.put("anomalyProbability", behavioral.anomalyProbability);
-      factors.put("isAnomaly", behavioral.isAnomaly);
-      factors.put("zScore", behavioral.zScore);
-      factors.put("severity", behavioral.severity);
+  private static <T> T resultOr(Future<T> f, long deadlineNanos, T fallback, String leg, List<String> degraded) {
+    try {
+      return f.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | TimeoutException | CancellationException ignored) {
+      // degraded below
     }
-    out.riskFactors = factors;
+    f.cancel(true);
+    degraded.add(leg);
+    return fallback;
+  }
 
-    return out;
+  /**
+   * Accepts either a DB id or a JA3/JA4 hash-like string. A hash already in the TLS trust index is answered from
+   * memory; otherwise {@code db} runs the id and hash lookups (inside a leg's transaction when concurrent).
+   */
+  private double tlsTrustForIdOrHash(String idOrHash, Function<Supplier<Double>, Double> db) {
+    Double indexed = tlsTrust.indexedTrust(idOrHash);
+    if (indexed != null) return indexed;
+    return db.apply(() -> {
+      Optional<TlsFingerprint> byId = tls.findById(idOrHash);
+      if (byId.isPresent()) {
+        return byId.get().getTrustScore() != null ? clamp01(byId.get().getTrustScore()) : 0.5;
+      }
+      return computeTlsRisk(idOrHash);
+    });
   }
 
-  // ---------- helpers (ported from ml-scoring.ts) ----------
+  /**
+   * Batch variant of {@link #fetchSignals}: the devices, fingerprints, patterns and baselines referenced by
+   * the whole batch are fetched once each with set-based queries. Results are returned in request order.
+   */
+  public List<Signals> fetchSignalsBatch(List<MlScoreRequest> rs) {
+    Set<String> userIds = new HashSet<>();
+    Set<String> deviceIds = new HashSet<>();
+    Set<String> tlsIds = new HashSet<>();
+    Set<String> patternIds = new HashSet<>();
+    for (MlScoreRequest r : rs) {
+      if (hasText(r.userId)) userIds.add(r.userId);
+      if (hasText(r.userId) && hasText(r.deviceProfileId)) deviceIds.add(r.deviceProfileId);
+      if (hasText(r.tlsFingerprintId)) tlsIds.add(r.tlsFingerprintId);
+      if (needsPatternLookup(r)) patternIds.add(r.behavioralPatternId);
+    }
 
-  private static List<Double> collect(List<BehavioralPattern> patterns, Function<BehavioralPattern, Double> getter) {
-    return patterns.stream().map(getter).filter(Objects::nonNull).collect(Collectors.toList());
-  }
+    Map<String, DeviceProfile> devicesById = new HashMap<>();
+    if (!deviceIds.isEmpty()) {
+      for (DeviceProfile d : devices.findAllById(deviceIds)) devicesById.put(d.getId(), d);
+    }
+    Map<String, Double> tlsTrustById = new HashMap<>();
+    if (!tlsIds.isEmpty()) {
+      for (var v : tls.findTrustViewsByIdIn(tlsIds)) {
+        tlsTrustById.put(v.getId(), v.getTrustScore() != null ? clamp01(v.getTrustScore()) : 0.5);
+      }
+    }
+    Map<String, BehavioralPattern> patternsById = new HashMap<>();
+    if (!patternIds.isEmpty()) {
+      for (BehavioralPattern bp : behaviors.findAllById(patternIds)) patternsById.put(bp.getId(), bp);
+    }
+    Map<String, BaselineProfile> baselinesByUser = baselineCache.getAll(userIds, baselines::loadAll);
+
+    List<Signals> out = new ArrayList<>(rs.size());
+    for (MlScoreRequest r : rs) {
+      double deviceTrust = 0.5;
+      if (hasText(r.userId) && hasText(r.deviceProfileId)) {
+        // Same ownership rule as computeDeviceRisk: the device must belong to the user.
+        DeviceProfile d = devicesById.get(r.deviceProfileId);
+        deviceTrust = (d != null && Objects.equals(d.getUserId(), r.userId)) ? deviceTrust(d) : UNKNOWN_DEVICE_TRUST;
+      }
+
+      double tlsTrust = 0.5;
+      if (hasText(r.tlsFingerprintId)) {
+        Double byId = tlsTrustById.get(r.tlsFingerprintId);
+        tlsTrust = byId != null ? byId : computeTlsRisk(r.tlsFingerprintId);
+      }
+
+      BehaviorVector currentBehavior = r.currentBehavior;
+      if (needsPatternLookup(r)) {
+        BehavioralPattern bp = patternsById.get(r.behavioralPatternId);
+        if (bp != null) currentBehavior = BehaviorVector.fromPattern(bp);
+      }
 
-  private static BaselineMetric metric(List<Double> values) {
-    double mean = calculateMean(values);
-    double std = calculateStdDev(values, mean);
-    return new BaselineMetric(mean, std);
+      out.add(new Signals(deviceTrust, tlsTrust, currentBehavior,
+        hasText(r.userId) ? baselinesByUser.get(r.userId) : null, List.of()));
+    }
+    return out;
   }
 
-  private static double calculateMean(List<Double> values) {
-    if (values == null || values.isEmpty()) return 0.0;
-    double sum = 0.0;
-    for (double v : values) sum += v;
-    return sum / values.size();
+  /** If the client didn't send features but gave us a behavioralPatternId, we derive them from the pattern. */
+  private static boolean needsPatternLookup(MlScoreRequest r) {
+    return (r.currentBehavior == null || r.currentBehavior.isEmpty()) && hasText(r.behavioralPatternId);
   }
 
-  private static double calculateStdDev(List<Double> values, double mean) {
-    if (values == null || values.size() < 2) return 0.0;
-    double sumSq = 0.0;
-    for (double v : values) {
-      double d = v - mean;
-      sumSq += d * d;
-    }
-    double variance = sumSq / (values.size() - 1.0); // sample variance
-    return Math.sqrt(variance);
+  private static boolean hasText(String s) {
+    return s != null && !s.isBlank();
   }
 
-  private static double calculateZScore(double value, double mean, double stdDev) {
+  // ---------- helpers (ported from ml-scoring.ts) ----------
+
+  static double calculateZScore(double value, double mean, double stdDev) {
     if (stdDev == 0.0) return 0.0;
     return Math.abs(value - mean) / stdDev;
   }
 
-  private static double zScoreToAnomalyProbability(double zScore) {
+  static double zScoreToAnomalyProbability(double zScore) {
     if (zScore <= 1) return 0;
     if (zScore <= 2) return (zScore - 1) * 0.3;
     if (zScore <= 3) return 0.3 + (zScore - 2) * 0.4;
     return Math.min(1, 0.7 + (zScore - 3) * 0.15);
   }
 
-  private static double checkFactor(AnomalyResult out, String name, Double value, BaselineMetric stats, double weight) {
-    if (value == null || stats == null || stats.mean == 0) return 0.0;
-
-    double z = calculateZScore(value, stats.mean, stats.stdDev);
-    double prob = zScoreToAnomalyProbability(z);
-
-    out.anomalyFactors.add(new AnomalyFactor(name, value, stats.mean, z, z > 2));
-    return prob * weight;
-  }
-
-  private static Double toDouble(Object o) {
-    if (o == null) return null;
-    if (o instanceof Number n) return n.doubleValue();
-    try { return Double.parseDouble(String.valueOf(o)); } catch (Exception e) { return null; }
-  }
-
   private static double clamp01(double v) {
     if (v < 0) return 0;
     if (v > 1) return 1;
@@ -0,0 +1,188 @@
+package com.authshield.server.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the monthly range partitions of the append-only event tables (see V7) in shape: makes sure the
+ * current month and the next {@code premake-months} exist, and detaches and drops partitions that ended more
+ * than {@code retention-months} ago (0 keeps everything).
+ *
+ * Rows that landed in a table's {@code <table>_default} partition get their month's partition created (which
+ * moves them over) unless that month is already expired. Anything still left there is logged and reported in
+ * {@link #stats()}; the default partition should stay empty.
+ *
+ * Runs at startup and then daily. Replicas coordinate through a transaction-scoped advisory lock, so only one
+ * of them does the DDL per run. Rows of an expired partition are subtracted from the dashboard rollups in the
+ * same transaction, just before it is detached.
+ */
+@Service
+public class PartitionMaintenanceService {
+
+  public static final List<String> TABLES =
+    List.of("authentication_events", "risk_scores", "geolocations", "audit_logs", "anomaly_alerts");
+
+  private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+  private static final long LOCK_KEY = 0x4153_5041_5254L; // "ASPART"
+  private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+  private final JdbcTemplate jdbc;
+  private final TransactionTemplate tx;
+  private final DashboardRollupService rollups;
+  private final int premakeMonths;
+  private final int retentionMonths;
+  private final boolean dropExpired;
+  private volatile OffsetDateTime lastRun;
+  private volatile List<String> lastExpired = List.of();
+
+  public PartitionMaintenanceService(JdbcTemplate jdbc,
+                                     TransactionTemplate tx,
+                                     DashboardRollupService rollups,
+                                     @Value("${authshield.partitions.premake-months:2}") int premakeMonths,
+                                     @Value("${authshield.partitions.retention-months:0}") int retentionMonths,
+                                     @Value("${authshield.partitions.drop-expired:true}") boolean dropExpired) {
+    this.jdbc = jdbc;
+    this.tx = tx;
+    this.rollups = rollups;
+    this.premakeMonths = Math.max(1, premakeMonths);
+    this.retentionMonths = Math.max(0, retentionMonths);
+    this.dropExpired = dropExpired;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onStartup() {
+    maintain();
+  }
+
+  @Scheduled(cron = "${authshield.partitions.maintenance-cron:0 15 3 * * *}", zone = "UTC")
+  public void maintain() {
+    try {
+      List<String> expired = tx.execute(status -> {
+        Boolean locked = jdbc.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) return null;
+        YearMonth now = YearMonth.now(ZoneOffset.UTC);
+        YearMonth cutoff = retentionMonths > 0 ? now.minusMonths(retentionMonths) : null;
+        List<String> out = new ArrayList<>();
+        Map<String, Long> leftInDefault = new LinkedHashMap<>();
+        for (String table : TABLES) {
+          for (int i = 0; i <= premakeMonths; i++) createMonth(table, now.plusMonths(i));
+          for (YearMonth month : parkedMonths(table)) {
+            if (cutoff == null || !month.isBefore(cutoff)) createMonth(table, month);
+          }
+          if (cutoff != null) out.addAll(expire(table, cutoff));
+          long left = defaultRows(table);
+          if (left > 0) leftInDefault.put(table, left);
+        }
+        if (!leftInDefault.isEmpty()) {
+          log.warn("Rows left in default partitions (months past retention): {}", leftInDefault);
+        }
+        return out;
+      });
+      if (expired == null) return; // another node holds the lock
+      lastRun = OffsetDateTime.now();
+      lastExpired = expired;
+      if (!expired.isEmpty()) {
+        log.info("{} expired partitions: {}", dropExpired ? "Dropped" : "Detached", expired);
+      }
+    } catch (Exception e) {
+      log.warn("Partition maintenance failed; retrying on the next run", e);
+    }
+  }
+
+  /** Creates the month's partition if missing, moving any rows parked in the default partition into it. */
+  private void createMonth(String table, YearMonth month) {
+    jdbc.queryForObject("select authshield_create_month_partition(?, ?)", String.class, table, month.atDay(1));
+  }
+
+  /** Months (UTC) of the rows in {@code <table>_default}; normally none. */
+  private List<YearMonth> parkedMonths(String table) {
+    return jdbc.queryForList(
+      "select distinct to_char(created_at at time zone 'UTC', 'YYYYMM') from " + defaultPartition(table),
+      String.class).stream().map(m -> YearMonth.parse(m, SUFFIX)).toList();
+  }
+
+  private long defaultRows(String table) {
+    Long n = jdbc.queryForObject("select count(*) from " + defaultPartition(table), Long.class);
+    return n == null ? 0 : n;
+  }
+
+  private static String defaultPartition(String table) {
+    return table + "_default";
+  }
+
+  /** Detaches (and optionally drops) every partition of {@code table} whose month is before {@code cutoff}. */
+  private List<String> expire(String table, YearMonth cutoff) {
+    Map<String, YearMonth> expiredMonths = new LinkedHashMap<>();
+    for (String part : partitions(table)) {
+      YearMonth month = monthOf(table, part);
+      if (month != null && month.isBefore(cutoff)) expiredMonths.put(part, month);
+    }
+    List<String> expired = new ArrayList<>(expiredMonths.keySet());
+    for (String part : expired) {
+      rollups.forgetPartition(table, part, expiredMonths.get(part));
+      jdbc.execute("alter table " + table + " detach partition " + part);
+      if (dropExpired) jdbc.execute("drop table " + part);
+    }
+    return expired;
+  }
+
+  private List<String> partitions(String table) {
+    return jdbc.queryForList("""
+      select c.relname from pg_inherits i
+        join pg_class c on c.oid = i.inhrelid
+        join pg_class p on p.oid = i.inhparent
+      where p.relname = ? and p.relnamespace = current_schema()::regnamespace
+      order by c.relname
+      """, String.class, table);
+  }
+
+  /** Month encoded in a {@code <table>_pYYYYMM} partition name; null for anything not created by us. */
+  private static YearMonth monthOf(String table, String partition) {
+    String prefix = table + "_p";
+    if (!partition.startsWith(prefix)) return null;
+    try {
+      return YearMonth.parse(partition.substring(prefix.length()), SUFFIX);
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  public Map<String,Object> stats() {
+    Map<String,Object> tables = new LinkedHashMap<>();
+    for (String table : TABLES) {
+      List<String> parts = partitions(table).stream().filter(p -> monthOf(table, p) != null).toList();
+      Map<String,Object> t = new HashMap<>();
+      t.put("partitions", parts.size());
+      t.put("defaultRows", defaultRows(table));
+      t.put("oldest", parts.isEmpty() ? null : parts.get(0));
+      t.put("newest", parts.isEmpty() ? null : parts.get(parts.size() - 1));
+      tables.put(table, t);
+    }
+    Map<String,Object> out = new HashMap<>();
+    out.put("tables", tables);
+    out.put("premakeMonths", premakeMonths);
+    out.put("retentionMonths", retentionMonths);
+    out.put("dropExpired", dropExpired);
+    out.put("lastRun", lastRun);
+    out.put("lastExpired", lastExpired);
+    return out;
+  }
+}
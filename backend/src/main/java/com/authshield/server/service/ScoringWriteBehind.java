@@ -0,0 +1,282 @@
+package com.authshield.server.service;
+
+import com.authshield.server.model.AnomalyAlert;
+import com.authshield.server.model.Geolocation;
+import com.authshield.server.model.RiskScore;
+import com.authshield.server.repo.AnomalyAlertRepository;
+import com.authshield.server.repo.GeolocationRepository;
+import com.authshield.server.repo.RiskScoreRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Persists the side-effect rows of a scoring request (geolocation, anomaly alert, risk score).
+ *
+ * Disabled (the default), each save is a plain repository save, as before. Enabled, the row gets its id and
+ * defaults immediately (so callers can still return and link it), is put on a bounded queue and written by
+ * background threads as JDBC batch inserts, one transaction per batch. When the queue is full the caller waits
+ * up to {@code enqueue-timeout-ms} and then saves the row itself, so overload slows requests down instead of
+ * dropping data. On shutdown intake is closed first (callers then save rows themselves) and the queue drained.
+ *
+ * Alerts and risk scores are counted into the dashboard rollups here, once their row is actually written:
+ * queued rows after their batch commits, so rows still queued, skipped as duplicates or lost are not counted.
+ */
+@Service
+public class ScoringWriteBehind {
+
+  private static final Logger log = LoggerFactory.getLogger(ScoringWriteBehind.class);
+
+  // "on conflict do nothing" matches what a failed repository save did (the row was lost) without failing the
+  // rest of the batch, e.g. on the legacy unique constraint on geolocations.ip_address.
+  private static final String INSERT_GEO = """
+    insert into geolocations (id, user_id, session_id, ip_address, city, region, country, country_code, latitude, longitude,
+      timezone, isp, asn, is_proxy, is_vpn, is_tor, is_datacenter, risk_score, created_at)
+    values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+    on conflict do nothing
+    """;
+
+  private static final String INSERT_ALERT = """
+    insert into anomaly_alerts (id, user_id, session_id, alert_type, severity, description, metadata, created_at, resolved, resolved_at)
+    values (?, ?, ?, ?, ?, ?, ?::jsonb, ?, ?, ?)
+    on conflict do nothing
+    """;
+
+  private static final String INSERT_RISK = """
+    insert into risk_scores (id, user_id, session_id, device_score, tls_score, behavioral_score, overall_score, factors,
+      threshold, passed, created_at)
+    values (?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?, ?, ?)
+    on conflict do nothing
+    """;
+
+  private final GeolocationRepository geos;
+  private final AnomalyAlertRepository alerts;
+  private final RiskScoreRepository riskScores;
+  private final JdbcTemplate jdbc;
+  private final TransactionTemplate tx;
+  private final DashboardRollupService rollups;
+  private final boolean enabled;
+  private final int batchSize;
+  private final long enqueueTimeoutMs;
+  private final BlockingQueue<Object> queue;
+  private final List<Thread> writers = new ArrayList<>();
+  private final AtomicLong written = new AtomicLong();
+  private final AtomicLong callerRuns = new AtomicLong();
+  /** Read side: the running check plus offer in enqueue. Write side: shutdown closing intake. */
+  private final ReadWriteLock intake = new ReentrantReadWriteLock();
+  private volatile boolean running;
+
+  public ScoringWriteBehind(GeolocationRepository geos,
+                            AnomalyAlertRepository alerts,
+                            RiskScoreRepository riskScores,
+                            JdbcTemplate jdbc,
+                            TransactionTemplate tx,
+                            DashboardRollupService rollups,
+                            @Value("${authshield.persistence.write-behind.enabled:false}") boolean enabled,
+                            @Value("${authshield.persistence.write-behind.queue-capacity:10000}") int queueCapacity,
+                            @Value("${authshield.persistence.write-behind.batch-size:500}") int batchSize,
+                            @Value("${authshield.persistence.write-behind.writers:1}") int writerCount,
+                            @Value("${authshield.persistence.write-behind.enqueue-timeout-ms:50}") long enqueueTimeoutMs) {
+    this.geos = geos;
+    this.alerts = alerts;
+    this.riskScores = riskScores;
+    this.jdbc = jdbc;
+    this.tx = tx;
+    this.rollups = rollups;
+    this.enabled = enabled;
+    this.batchSize = Math.max(1, batchSize);
+    this.enqueueTimeoutMs = Math.max(0, enqueueTimeoutMs);
+    this.queue = enabled ? new ArrayBlockingQueue<>(Math.max(1, queueCapacity)) : null;
+    if (enabled) {
+      running = true;
+      for (int i = 0; i < Math.max(1, writerCount); i++) {
+        Thread t = new Thread(this::writeLoop, "write-behind-" + i);
+        t.setDaemon(true);
+        t.start();
+        writers.add(t);
+      }
+    }
+  }
+
+  public Geolocation save(Geolocation g) {
+    if (!enabled) return geos.save(g);
+    g.prePersist();
+    if (!enqueue(g)) return geos.save(g);
+    return g;
+  }
+
+  public AnomalyAlert save(AnomalyAlert a) {
+    if (enabled) {
+      a.prePersist();
+      if (enqueue(a)) return a;
+    }
+    AnomalyAlert saved = alerts.save(a);
+    counted(saved);
+    return saved;
+  }
+
+  public RiskScore save(RiskScore r) {
+    if (enabled) {
+      r.prePersist();
+      if (enqueue(r)) return r;
+    }
+    RiskScore saved = riskScores.save(r);
+    counted(saved);
+    return saved;
+  }
+
+  private void counted(Object row) {
+    if (row instanceof AnomalyAlert a) rollups.record(DashboardRollupService.ANOMALY_ALERTS, a.getCreatedAt());
+    else if (row instanceof RiskScore r) rollups.record(DashboardRollupService.RISK_SCORES, r.getCreatedAt(), r.getOverallScore());
+  }
+
+  private boolean enqueue(Object row) {
+    intake.readLock().lock();
+    try {
+      if (running && queue.offer(row, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      intake.readLock().unlock();
+    }
+    callerRuns.incrementAndGet();
+    return false;
+  }
+
+  private void writeLoop() {
+    List<Object> batch = new ArrayList<>(batchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        Object first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) continue;
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        write(batch);
+      } catch (InterruptedException e) {
+        if (!running) break;
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void write(List<Object> batch) {
+    List<Object[]> geoRows = new ArrayList<>(), alertRows = new ArrayList<>(), riskRows = new ArrayList<>();
+    List<Geolocation> geoList = new ArrayList<>();
+    List<AnomalyAlert> alertList = new ArrayList<>();
+    List<RiskScore> riskList = new ArrayList<>();
+    for (Object o : batch) {
+      if (o instanceof Geolocation g) { geoRows.add(row(g)); geoList.add(g); }
+      else if (o instanceof AnomalyAlert a) { alertRows.add(row(a)); alertList.add(a); }
+      else if (o instanceof RiskScore r) { riskRows.add(row(r)); riskList.add(r); }
+    }
+    try {
+      int[][] inserted = tx.execute(s -> new int[][]{
+        geoRows.isEmpty() ? new int[0] : jdbc.batchUpdate(INSERT_GEO, geoRows),
+        alertRows.isEmpty() ? new int[0] : jdbc.batchUpdate(INSERT_ALERT, alertRows),
+        riskRows.isEmpty() ? new int[0] : jdbc.batchUpdate(INSERT_RISK, riskRows)
+      });
+      // Committed: count what was inserted (0 means "on conflict do nothing" skipped the row).
+      written.addAndGet(countInserted(geoList, inserted[0]) + countInserted(alertList, inserted[1])
+        + countInserted(riskList, inserted[2]));
+    } catch (Exception e) {
+      // One bad row shouldn't lose the batch: fall back to saving rows one by one.
+      log.warn("Write-behind batch of {} failed; retrying rows individually", batch.size(), e);
+      for (Object o : batch) {
+        try {
+          if (o instanceof Geolocation g) geos.save(g);
+          else if (o instanceof AnomalyAlert a) alerts.save(a);
+          else if (o instanceof RiskScore r) riskScores.save(r);
+          written.incrementAndGet();
+          counted(o);
+        } catch (Exception rowError) {
+          log.warn("Dropping {} after write failure: {}", o.getClass().getSimpleName(), rowError.getMessage());
+        }
+      }
+    }
+  }
+
+  /** Records the rollups for rows that were inserted and returns how many were. */
+  private int countInserted(List<?> rows, int[] updateCounts) {
+    int n = 0;
+    for (int i = 0; i < rows.size(); i++) {
+      // The driver may report SUCCESS_NO_INFO (-2) for rewritten batches; only an explicit 0 means skipped.
+      if (i >= updateCounts.length || updateCounts[i] != 0) {
+        counted(rows.get(i));
+        n++;
+      }
+    }
+    return n;
+  }
+
+  private static Object[] row(Geolocation g) {
+    return new Object[]{g.getId(), g.getUserId(), g.getSessionId(), g.getIpAddress(), g.getCity(), g.getRegion(), g.getCountry(),
+      g.getCountryCode(), g.getLatitude(), g.getLongitude(), g.getTimezone(), g.getIsp(), g.getAsn(), g.getIsProxy(), g.getIsVpn(),
+      g.getIsTor(), g.getIsDatacenter(), g.getRiskScore(), ts(g.getCreatedAt())};
+  }
+
+  private static Object[] row(AnomalyAlert a) {
+    return new Object[]{a.getId(), a.getUserId(), a.getSessionId(), a.getAlertType(), a.getSeverity(), a.getDescription(),
+      a.getMetadata(), ts(a.getCreatedAt()), a.getResolved(), ts(a.getResolvedAt())};
+  }
+
+  private static Object[] row(RiskScore r) {
+    return new Object[]{r.getId(), r.getUserId(), r.getSessionId(), r.getDeviceScore(), r.getTlsScore(), r.getBehavioralScore(),
+      r.getOverallScore(), r.getFactors(), r.getThreshold(), r.getPassed(), ts(r.getCreatedAt())};
+  }
+
+  private static Timestamp ts(OffsetDateTime t) {
+    return t == null ? null : Timestamp.from(t.toInstant());
+  }
+
+  public Map<String,Object> stats() {
+    Map<String,Object> out = new HashMap<>();
+    out.put("enabled", enabled);
+    out.put("queued", queue == null ? 0 : queue.size());
+    out.put("written", written.get());
+    out.put("callerRuns", callerRuns.get());
+    return out;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (!enabled) return;
+    // Once this returns no offer can succeed, so whatever is queued after the writers stop is all that's left.
+    intake.writeLock().lock();
+    try {
+      running = false;
+    } finally {
+      intake.writeLock().unlock();
+    }
+    for (Thread t : writers) {
+      try {
+        t.join(10_000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    if (!queue.isEmpty()) {
+      List<Object> rest = new ArrayList<>();
+      queue.drainTo(rest);
+      write(rest);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.authshield.server.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind for sessions.last_activity.
+ *
+ * Validations only record the latest activity time per session in memory; a scheduled flush writes them in one
+ * batched UPDATE, so each session is written at most once per flush interval however often it is validated.
+ * The UPDATE never moves last_activity backwards, so a late flush can't undo a newer write from another node.
+ */
+@Service
+public class SessionActivityTracker {
+
+  private static final Logger log = LoggerFactory.getLogger(SessionActivityTracker.class);
+
+  private static final String UPDATE_ACTIVITY =
+    "update sessions set last_activity = greatest(last_activity, ?) where id = ?";
+
+  private final JdbcTemplate jdbc;
+  private final Map<String, OffsetDateTime> pending = new ConcurrentHashMap<>();
+  private final AtomicLong flushed = new AtomicLong();
+  private final AtomicLong failedFlushes = new AtomicLong();
+
+  public SessionActivityTracker(JdbcTemplate jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  public void touch(String sessionId, OffsetDateTime at) {
+    if (sessionId == null || at == null) return;
+    pending.merge(sessionId, at, (cur, next) -> next.isAfter(cur) ? next : cur);
+  }
+
+  public Map<String,Object> stats() {
+    Map<String,Object> out = new HashMap<>();
+    out.put("pending", pending.size());
+    out.put("flushed", flushed.get());
+    out.put("failedFlushes", failedFlushes.get());
+    return out;
+  }
+
+  @Scheduled(fixedDelayString = "${authshield.sessions.activity.flush-interval-ms:10000}")
+  public void flush() {
+    if (pending.isEmpty()) return;
+
+    List<String> ids = new ArrayList<>(pending.keySet());
+    List<Object[]> rows = new ArrayList<>(ids.size());
+    Map<String, OffsetDateTime> drained = new HashMap<>();
+    for (String id : ids) {
+      OffsetDateTime at = pending.remove(id);
+      if (at == null) continue;
+      drained.put(id, at);
+      rows.add(new Object[]{Timestamp.from(at.toInstant()), id});
+    }
+
+    try {
+      jdbc.batchUpdate(UPDATE_ACTIVITY, rows);
+      flushed.addAndGet(rows.size());
+    } catch (Exception e) {
+      failedFlushes.incrementAndGet();
+      // Keep the timestamps so the next flush retries them; a newer touch in the meantime wins.
+      log.warn("Session activity flush failed; retrying next cycle", e);
+      drained.forEach(this::touch);
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    flush();
+  }
+}
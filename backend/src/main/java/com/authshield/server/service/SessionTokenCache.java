@@ -0,0 +1,111 @@
+package com.authshield.server.service;
+
+import com.authshield.server.model.SessionEntity;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Cache of recently validated sessions keyed by the SHA-256 of their bearer token, so raw tokens never sit in
+ * the heap as map keys. Each entry lives for the configured TTL or until the session's own expiry, whichever
+ * comes first; only valid sessions are cached.
+ *
+ * Invalidations are relayed to the other replicas by {@link com.authshield.server.ws.ClusterRelay} (as token
+ * hashes) when the cluster relay is enabled. Without it, or while a replica's listener is reconnecting, another
+ * replica may keep accepting a revoked session for up to the TTL; run a single replica or keep the TTL short.
+ */
+@Component
+public class SessionTokenCache {
+
+  private final Cache<String, SessionEntity> cache;
+  private volatile Consumer<String> relay;
+
+  public SessionTokenCache(@Value("${authshield.sessions.token-cache.max-size:50000}") long maxSize,
+                           @Value("${authshield.sessions.token-cache.ttl:1m}") Duration ttl) {
+    long ttlNanos = ttl.toNanos();
+    this.cache = Caffeine.newBuilder()
+      .maximumSize(maxSize)
+      .expireAfter(new Expiry<String, SessionEntity>() {
+        @Override
+        public long expireAfterCreate(String key, SessionEntity s, long currentTime) {
+          return Math.min(ttlNanos, nanosUntil(s.getExpiresAt()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, SessionEntity s, long currentTime, long currentDuration) {
+          return Math.min(ttlNanos, nanosUntil(s.getExpiresAt()));
+        }
+
+        @Override
+        public long expireAfterRead(String key, SessionEntity s, long currentTime, long currentDuration) {
+          return currentDuration;
+        }
+      })
+      .recordStats()
+      .build();
+  }
+
+  public SessionEntity get(String token) {
+    return cache.getIfPresent(hash(token));
+  }
+
+  public void put(String token, SessionEntity session) {
+    cache.put(hash(token), session);
+  }
+
+  public void invalidate(String token) {
+    if (token == null) return;
+    String key = hash(token);
+    cache.invalidate(key);
+    Consumer<String> r = relay;
+    if (r != null) r.accept(key);
+  }
+
+  /** Applies an invalidation relayed from another replica; not relayed again. */
+  public void invalidateHashed(String tokenHash) {
+    cache.invalidate(tokenHash);
+  }
+
+  /** Receives the token hash of every local invalidation, for fan-out to other replicas. */
+  public void relayTo(Consumer<String> relay) {
+    this.relay = relay;
+  }
+
+  public Map<String,Object> stats() {
+    CacheStats s = cache.stats();
+    Map<String,Object> out = new HashMap<>();
+    out.put("size", cache.estimatedSize());
+    out.put("hits", s.hitCount());
+    out.put("misses", s.missCount());
+    out.put("evictions", s.evictionCount());
+    out.put("hitRate", s.hitRate());
+    return out;
+  }
+
+  private static long nanosUntil(OffsetDateTime at) {
+    if (at == null) return 0;
+    return Math.max(0, Duration.between(OffsetDateTime.now(), at).toNanos());
+  }
+
+  static String hash(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package com.authshield.server.service;
+
+import com.authshield.server.model.TlsFingerprint;
+import com.authshield.server.repo.TlsFingerprintRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory JA3/JA4 hash -> trust score index.
+ *
+ * Preloaded with the most recently seen fingerprints at startup and kept current as fingerprints are
+ * saved. Hashes not in the index fall back to an indexed DB lookup and are added on hit, so results are
+ * correct for the whole table, not only the preloaded slice. When several rows share a hash the most
+ * recently seen one wins, as in the original top-500 scan.
+ *
+ * Hashes the DB doesn't know either are remembered in a small bounded cache, so a client presenting a new
+ * fingerprint on every request doesn't cost a query each time; {@link #record} drops them from it.
+ */
+@Component
+public class TlsTrustIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(TlsTrustIndex.class);
+  static final double UNKNOWN_TRUST = 0.5;
+
+  private record Entry(double trust, OffsetDateTime lastSeen) {}
+
+  private final TlsFingerprintRepository repo;
+  private final int preloadLimit;
+  private final Map<String, Entry> byHash = new ConcurrentHashMap<>();
+  private final Cache<String, Boolean> unknown;
+
+  public TlsTrustIndex(TlsFingerprintRepository repo,
+                       @Value("${authshield.tls.index.preload-limit:100000}") int preloadLimit,
+                       @Value("${authshield.tls.index.unknown-cache.max-size:10000}") long unknownMaxSize,
+                       @Value("${authshield.tls.index.unknown-cache.ttl:1m}") Duration unknownTtl) {
+    this.repo = repo;
+    this.preloadLimit = preloadLimit;
+    this.unknown = Caffeine.newBuilder()
+      .maximumSize(unknownMaxSize)
+      .expireAfterWrite(unknownTtl)
+      .build();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void preload() {
+    if (preloadLimit <= 0) return;
+    try {
+      List<TlsFingerprintRepository.TrustView> views = repo.findTrustViews(PageRequest.of(0, preloadLimit));
+      for (var v : views) put(v.getJa3Hash(), v.getJa4Hash(), v.getTrustScore(), v.getLastSeen());
+      log.info("TLS trust index preloaded {} fingerprints ({} hashes)", views.size(), byHash.size());
+    } catch (Exception e) {
+      log.warn("TLS trust index preload failed; falling back to DB lookups", e);
+    }
+  }
+
+  /** Trust (0..1) for a JA3 or JA4 hash; 0.5 when the hash has never been seen. */
+  public double trustFor(String hash) {
+    if (hash == null || hash.isBlank()) return UNKNOWN_TRUST;
+    Entry e = byHash.get(hash);
+    if (e != null) return e.trust();
+    if (unknown.getIfPresent(hash) != null) return UNKNOWN_TRUST;
+
+    List<TlsFingerprintRepository.TrustView> hits = repo.findTrustViewsByHash(hash, PageRequest.of(0, 1));
+    if (hits.isEmpty()) {
+      unknown.put(hash, Boolean.TRUE);
+      return UNKNOWN_TRUST;
+    }
+    var v = hits.get(0);
+    put(v.getJa3Hash(), v.getJa4Hash(), v.getTrustScore(), v.getLastSeen());
+    return trustOf(v.getTrustScore());
+  }
+
+  /** Trust for a hash already known to be indexed or unknown, without touching the DB; null otherwise. */
+  public Double indexedTrust(String hash) {
+    if (hash == null || hash.isBlank()) return null;
+    Entry e = byHash.get(hash);
+    if (e != null) return e.trust();
+    return unknown.getIfPresent(hash) != null ? UNKNOWN_TRUST : null;
+  }
+
+  /** Called after a fingerprint is saved so the index reflects it immediately. */
+  public void record(TlsFingerprint f) {
+    if (f == null) return;
+    put(f.getJa3Hash(), f.getJa4Hash(), f.getTrustScore(), f.getLastSeen());
+    if (f.getJa3Hash() != null) unknown.invalidate(f.getJa3Hash());
+    if (f.getJa4Hash() != null) unknown.invalidate(f.getJa4Hash());
+  }
+
+  public int size() { return byHash.size(); }
+
+  private void put(String ja3, String ja4, Double trust, OffsetDateTime lastSeen) {
+    Entry e = new Entry(trustOf(trust), lastSeen);
+    if (ja3 != null && !ja3.isBlank()) byHash.merge(ja3, e, TlsTrustIndex::newer);
+    if (ja4 != null && !ja4.isBlank()) byHash.merge(ja4, e, TlsTrustIndex::newer);
+  }
+
+  private static Entry newer(Entry old, Entry cur) {
+    if (old.lastSeen() == null) return cur;
+    if (cur.lastSeen() == null) return old;
+    return cur.lastSeen().isBefore(old.lastSeen()) ? old : cur;
+  }
+
+  private static double trustOf(Double v) {
+    if (v == null) return UNKNOWN_TRUST;
+    return Math.max(0.0, Math.min(1.0, v));
+  }
+}
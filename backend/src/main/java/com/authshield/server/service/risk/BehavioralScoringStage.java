@@ -0,0 +1,37 @@
+package com.authshield.server.service.risk;
+
+import com.authshield.server.service.MlScoringService;
+
+/**
+ * Z-score anomaly scoring of the current behavior against the user's baseline. Skipped once decided. When the
+ * pattern or baseline lookup was degraded the worst-case {@link MlScoringService#degradedBehavior()} stands in.
+ */
+public class BehavioralScoringStage implements RiskStage {
+
+  static final String NAME = "behavioral";
+
+  private final MlScoringService ml;
+
+  public BehavioralScoringStage(MlScoringService ml) {
+    this.ml = ml;
+  }
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public boolean skipWhenDecided() {
+    return true;
+  }
+
+  @Override
+  public void apply(RiskContext ctx) {
+    if (ctx.suppliedBehavioralScore > 0 || !ctx.profile.scoresBehavior(ctx.request)) return;
+    ctx.behavioral = ctx.signals.behaviorDegraded()
+      ? MlScoringService.degradedBehavior()
+      : ml.scoreAgainstBaseline(ctx.signals.baseline(), ctx.signals.currentBehavior());
+    ctx.behavioralScore = ctx.behavioral.overallScore;
+  }
+}
@@ -0,0 +1,58 @@
+package com.authshield.server.service.risk;
+
+import com.authshield.server.ws.LiveEvent;
+import com.authshield.server.ws.Severity;
+import com.authshield.server.ws.WebSocketHub;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/** Live dashboard events: an activity entry, preceded by a confidence_update when the profile asks for one. */
+public class BroadcastStage implements RiskStage {
+
+  private final WebSocketHub ws;
+  private final ObjectMapper om;
+
+  public BroadcastStage(WebSocketHub ws, ObjectMapper om) {
+    this.ws = ws;
+    this.om = om;
+  }
+
+  @Override
+  public String name() {
+    return "broadcast";
+  }
+
+  @Override
+  public void apply(RiskContext ctx) {
+    String userId = ctx.request.userId;
+    Severity severity = Severity.fromConfidenceLevel(ctx.confidenceLevel);
+    try {
+      if (ctx.profile.broadcastsConfidence) {
+        Map<String,Object> update = new HashMap<>();
+        update.put("type", "confidence_update");
+        update.put("score", ctx.overallScore);
+        update.put("userId", userId);
+        ws.broadcast(LiveEvent.of("confidence_update", userId, severity), om.writeValueAsString(update));
+      }
+
+      Map<String,Object> activity = new HashMap<>();
+      activity.put("id", UUID.randomUUID().toString());
+      activity.put("type", "risk_calculated");
+      activity.put("userId", userId);
+      if (ctx.deviceFingerprint != null) activity.put("deviceFingerprint", ctx.deviceFingerprint);
+      activity.put("riskScore", ctx.overallScore);
+      activity.put("confidenceLevel", ctx.confidenceLevel);
+      activity.put("message", ctx.profile.activityMessage(ctx));
+      activity.put("timestamp", OffsetDateTime.now().toString());
+
+      Map<String,Object> envelope = new HashMap<>();
+      envelope.put("type", "activity");
+      envelope.put("activity", activity);
+      ws.broadcast(LiveEvent.of("activity", userId, severity), om.writeValueAsString(envelope));
+    } catch (Exception ignored) {}
+  }
+}
@@ -0,0 +1,20 @@
+package com.authshield.server.service.risk;
+
+/**
+ * Resolves device and TLS trust (caller-supplied scores win over fetched signals) and seeds behavioral trust
+ * with the supplied score or the profile default, which {@link BehavioralScoringStage} may then refine.
+ */
+public class ComponentScoringStage implements RiskStage {
+
+  @Override
+  public String name() {
+    return "components";
+  }
+
+  @Override
+  public void apply(RiskContext ctx) {
+    ctx.deviceScore = ctx.suppliedDeviceScore > 0 ? ctx.suppliedDeviceScore : ctx.signals.deviceTrust();
+    ctx.tlsScore = ctx.suppliedTlsScore > 0 ? ctx.suppliedTlsScore : ctx.signals.tlsTrust();
+    ctx.behavioralScore = ctx.suppliedBehavioralScore > 0 ? ctx.suppliedBehavioralScore : ctx.profile.defaultBehavioralTrust;
+  }
+}
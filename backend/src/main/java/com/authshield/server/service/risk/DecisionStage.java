@@ -0,0 +1,33 @@
+package com.authshield.server.service.risk;
+
+import static com.authshield.server.service.risk.RiskContext.clamp01;
+
+/**
+ * Weighted overall score, the profile's decision rules, then the impossible-travel override. A request scored
+ * on degraded signals is never let through silently: anything better than block becomes step_up.
+ */
+public class DecisionStage implements RiskStage {
+
+  @Override
+  public String name() {
+    return "decision";
+  }
+
+  @Override
+  public void apply(RiskContext ctx) {
+    RiskProfile p = ctx.profile;
+    ctx.overallScore = clamp01(ctx.deviceScore * p.deviceWeight + ctx.tlsScore * p.tlsWeight
+      + ctx.behavioralScore * p.behavioralWeight);
+    p.decide(ctx);
+    if (ctx.impossibleTravel) p.applyTravel(ctx);
+
+    if (!ctx.signals.degradedLegs().isEmpty()) {
+      ctx.confidenceLevel = "low";
+      ctx.passed = false;
+      if (!"block".equals(ctx.recommendation)) ctx.recommendation = "step_up";
+      ctx.factors.put("degradedLegs", ctx.signals.degradedLegs());
+    }
+    if (!ctx.skippedStages.isEmpty()) ctx.factors.put("skippedStages", ctx.skippedStages);
+    ctx.decided = true;
+  }
+}
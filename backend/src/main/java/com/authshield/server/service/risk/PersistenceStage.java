@@ -0,0 +1,41 @@
+package com.authshield.server.service.risk;
+
+import com.authshield.server.model.RiskScore;
+import com.authshield.server.service.ScoringWriteBehind;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Records the outcome as a risk_scores row through write-behind, which counts it into the dashboard rollups
+ * once it is written.
+ * behavioral_score is left null when behavioral scoring was skipped.
+ */
+public class PersistenceStage implements RiskStage {
+
+  private final ScoringWriteBehind writeBehind;
+  private final ObjectMapper om;
+
+  public PersistenceStage(ScoringWriteBehind writeBehind, ObjectMapper om) {
+    this.writeBehind = writeBehind;
+    this.om = om;
+  }
+
+  @Override
+  public String name() {
+    return "persist";
+  }
+
+  @Override
+  public void apply(RiskContext ctx) {
+    RiskScore rs = new RiskScore();
+    rs.setUserId(ctx.request.userId);
+    rs.setSessionId(ctx.request.sessionId);
+    rs.setDeviceScore(ctx.deviceScore);
+    rs.setTlsScore(ctx.tlsScore);
+    rs.setBehavioralScore(ctx.behavioralMeasured() ? ctx.behavioralScore : null);
+    rs.setOverallScore(ctx.overallScore);
+    try { rs.setFactors(om.writeValueAsString(ctx.factors)); } catch (Exception ignored) {}
+    rs.setThreshold(ctx.profile.threshold);
+    rs.setPassed(ctx.passed);
+    writeBehind.save(rs);
+  }
+}
@@ -0,0 +1,73 @@
+package com.authshield.server.service.risk;
+
+import com.authshield.server.dto.ml.AnomalyResult;
+import com.authshield.server.dto.ml.MlScoreRequest;
+import com.authshield.server.service.MlScoringService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mutable state threaded through one run of a {@link RiskPipeline}: the request, the fetched signals, the
+ * component scores and the decision. Not shared between threads.
+ */
+public final class RiskContext {
+
+  public final RiskProfile profile;
+  public final MlScoreRequest request;
+
+  /** Optional client-side device fingerprint, echoed in the activity event. */
+  public String deviceFingerprint;
+
+  /** Component scores supplied by the caller; values {@code <= 0} mean "compute it from signals". */
+  public double suppliedDeviceScore;
+  public double suppliedTlsScore;
+  public double suppliedBehavioralScore;
+
+  /** Pre-fetched by batch callers; otherwise filled in by {@link SignalFetchStage}. */
+  public MlScoringService.Signals signals;
+
+  public double deviceScore;
+  public double tlsScore;
+  public double behavioralScore;
+  public AnomalyResult behavioral;
+
+  public boolean impossibleTravel;
+  public double requiredSpeedKmh;
+
+  public double overallScore;
+  public String confidenceLevel;
+  public String recommendation;
+  public boolean passed;
+  public final Map<String,Object> factors = new HashMap<>();
+
+  /** Set once the outcome is forced (e.g. by impossible travel); skippable stages are then bypassed. */
+  public boolean decided;
+
+  public final Map<String, Long> stageNanos = new LinkedHashMap<>();
+  public final List<String> skippedStages = new ArrayList<>();
+
+  public RiskContext(RiskProfile profile, MlScoreRequest request) {
+    this.profile = profile;
+    this.request = request != null ? request : new MlScoreRequest();
+  }
+
+  /**
+   * False when behavioral scoring was skipped because the outcome was already decided: {@link #behavioralScore}
+   * then holds the profile default, which must not be reported or stored as a measurement.
+   */
+  public boolean behavioralMeasured() {
+    return !skippedStages.contains(BehavioralScoringStage.NAME);
+  }
+
+  static boolean hasText(String s) {
+    return s != null && !s.isBlank();
+  }
+
+  static double clamp01(double v) {
+    return Math.max(0.0, Math.min(1.0, v));
+  }
+}
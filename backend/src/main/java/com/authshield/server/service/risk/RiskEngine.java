@@ -0,0 +1,119 @@
+package com.authshield.server.service.risk;
+
+import com.authshield.server.dto.ml.MlScoreRequest;
+import com.authshield.server.dto.ml.ScoreResponse;
+import com.authshield.server.service.ImpossibleTravelService;
+import com.authshield.server.service.IpGeoResolver;
+import com.authshield.server.service.MlScoringService;
+import com.authshield.server.service.ScoringWriteBehind;
+import com.authshield.server.ws.WebSocketHub;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.authshield.server.service.risk.RiskContext.clamp01;
+
+/**
+ * Scoring for POST /api/calculate-risk and POST /api/ml/score. Both run the same stages
+ * (travel -> signals -> components -> behavioral -> decision -> [persist] -> broadcast) and differ only in
+ * their {@link RiskProfile} and whether the outcome is stored as a risk_scores row.
+ */
+@Service
+public class RiskEngine {
+
+  private final MlScoringService ml;
+  private final RiskPipeline calculateRisk;
+  private final RiskPipeline mlScore;
+
+  public RiskEngine(MlScoringService ml,
+                    ImpossibleTravelService travel,
+                    IpGeoResolver ipGeo,
+                    ScoringWriteBehind writeBehind,
+                    WebSocketHub ws,
+                    ObjectMapper om) {
+    this.ml = ml;
+    RiskStage travelStage = new TravelEnrichmentStage(travel, ipGeo);
+    RiskStage signals = new SignalFetchStage(ml);
+    RiskStage components = new ComponentScoringStage();
+    RiskStage behavioral = new BehavioralScoringStage(ml);
+    RiskStage decision = new DecisionStage();
+    RiskStage broadcast = new BroadcastStage(ws, om);
+    this.calculateRisk = new RiskPipeline(List.of(travelStage, signals, components, behavioral, decision,
+      new PersistenceStage(writeBehind, om), broadcast));
+    this.mlScore = new RiskPipeline(List.of(travelStage, signals, components, behavioral, decision, broadcast));
+  }
+
+  /** Runs a {@link RiskProfile#CALCULATE_RISK} context and returns the Node-compatible response body. */
+  public Map<String,Object> calculateRisk(RiskContext ctx) {
+    calculateRisk.run(ctx);
+    return Map.of(
+      "overallScore", ctx.overallScore,
+      "confidenceLevel", ctx.confidenceLevel,
+      "passed", ctx.passed,
+      "threshold", ctx.profile.threshold,
+      "recommendation", ctx.recommendation,
+      "factors", ctx.factors
+    );
+  }
+
+  public ScoreResponse score(MlScoreRequest req) {
+    return toScoreResponse(mlScore.run(new RiskContext(RiskProfile.ML_SCORE, req)));
+  }
+
+  /**
+   * Micro-batch variant of {@link #score}: signals for the whole batch are fetched up front with set-based
+   * queries, then each item runs the remaining stages in request order.
+   */
+  public List<ScoreResponse> scoreBatch(List<MlScoreRequest> reqs) {
+    List<RiskContext> ctxs = new ArrayList<>(reqs.size());
+    List<MlScoreRequest> rs = new ArrayList<>(reqs.size());
+    for (MlScoreRequest req : reqs) {
+      RiskContext ctx = new RiskContext(RiskProfile.ML_SCORE, req);
+      ctxs.add(ctx);
+      rs.add(ctx.request);
+    }
+    List<MlScoringService.Signals> signals = ml.fetchSignalsBatch(rs);
+
+    List<ScoreResponse> out = new ArrayList<>(ctxs.size());
+    for (int i = 0; i < ctxs.size(); i++) {
+      RiskContext ctx = ctxs.get(i);
+      ctx.signals = signals.get(i);
+      out.add(toScoreResponse(mlScore.run(ctx)));
+    }
+    return out;
+  }
+
+  public static ScoreResponse toScoreResponse(RiskContext ctx) {
+    RiskProfile p = ctx.profile;
+    ScoreResponse out = new ScoreResponse();
+    out.overallScore = ctx.overallScore;
+    out.recommendation = ctx.recommendation;
+    out.confidenceLevel = ctx.confidenceLevel;
+
+    out.weights.put("device", p.deviceWeight);
+    out.weights.put("tls", p.tlsWeight);
+    out.weights.put("behavioral", p.behavioralWeight);
+
+    out.deviceScore = clamp01(ctx.deviceScore);
+    out.tlsScore = clamp01(ctx.tlsScore);
+    out.behavioralScore = ctx.behavioralMeasured() ? clamp01(ctx.behavioralScore) : null;
+    out.components.put("device", out.deviceScore);
+    out.components.put("tls", out.tlsScore);
+    out.components.put("behavioral", out.behavioralScore);
+
+    out.riskFactors = ctx.factors;
+    return out;
+  }
+
+  /** Per-stage run counts and latencies for each pipeline. */
+  public Map<String,Object> stats() {
+    Map<String,Object> out = new LinkedHashMap<>();
+    out.put("calculateRisk", calculateRisk.stats());
+    out.put("mlScore", mlScore.stats());
+    return out;
+  }
+}
@@ -0,0 +1,71 @@
+package com.authshield.server.service.risk;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs an ordered list of {@link RiskStage}s over a {@link RiskContext}, timing each one. Stages that may be
+ * skipped once the outcome is decided are bypassed (and listed in {@link RiskContext#skippedStages}).
+ */
+public class RiskPipeline {
+
+  private static final class StageStats {
+    final LongAdder runs = new LongAdder();
+    final LongAdder skipped = new LongAdder();
+    final LongAdder totalNanos = new LongAdder();
+    final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos) {
+      runs.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+  }
+
+  private final List<RiskStage> stages;
+  /** Fixed at construction, so reads need no locking. */
+  private final Map<String, StageStats> stats = new LinkedHashMap<>();
+
+  public RiskPipeline(List<RiskStage> stages) {
+    this.stages = List.copyOf(stages);
+    for (RiskStage s : this.stages) stats.put(s.name(), new StageStats());
+  }
+
+  public RiskContext run(RiskContext ctx) {
+    for (RiskStage s : stages) {
+      StageStats st = stats.get(s.name());
+      if (ctx.decided && s.skipWhenDecided()) {
+        st.skipped.increment();
+        ctx.skippedStages.add(s.name());
+        continue;
+      }
+      long t0 = System.nanoTime();
+      try {
+        s.apply(ctx);
+      } finally {
+        long elapsed = System.nanoTime() - t0;
+        ctx.stageNanos.put(s.name(), elapsed);
+        st.record(elapsed);
+      }
+    }
+    return ctx;
+  }
+
+  /** Per stage, in pipeline order: runs, skips, mean and max latency in milliseconds. */
+  public Map<String,Object> stats() {
+    Map<String,Object> out = new LinkedHashMap<>();
+    stats.forEach((name, st) -> {
+      long runs = st.runs.sum();
+      Map<String,Object> m = new LinkedHashMap<>();
+      m.put("runs", runs);
+      m.put("skipped", st.skipped.sum());
+      m.put("avgMs", runs == 0 ? 0.0 : st.totalNanos.sum() / (double) runs / 1_000_000.0);
+      m.put("maxMs", st.maxNanos.get() / 1_000_000.0);
+      out.put(name, m);
+    });
+    return out;
+  }
+}
@@ -0,0 +1,146 @@
+package com.authshield.server.service.risk;
+
+import com.authshield.server.dto.ml.MlScoreRequest;
+
+import static com.authshield.server.service.risk.RiskContext.clamp01;
+import static com.authshield.server.service.risk.RiskContext.hasText;
+
+/**
+ * Per-endpoint scoring policy: component weights, decision thresholds, how impossible travel overrides the
+ * decision and what the activity feed says. Everything else about a scoring run is shared.
+ */
+public enum RiskProfile {
+
+  /** POST /api/calculate-risk (Node parity): pass/fail against a 0.7 threshold. */
+  CALCULATE_RISK(0.4, 0.3, 0.3, 0.5, 0.7, true) {
+    @Override
+    boolean scoresBehavior(MlScoreRequest r) {
+      return hasText(r.userId) && r.currentBehavior != null && !r.currentBehavior.isEmpty();
+    }
+
+    @Override
+    void decide(RiskContext ctx) {
+      double o = ctx.overallScore;
+      ctx.confidenceLevel = o >= 0.7 ? "high" : o >= 0.4 ? "medium" : "low";
+      ctx.passed = o >= threshold;
+      ctx.recommendation = ctx.passed ? "silent_auth" : "step_up";
+
+      // Match Node factors payload (including the small random demo fields).
+      ctx.factors.put("deviceFamiliarity", clamp01(ctx.deviceScore));
+      ctx.factors.put("tlsConsistency", clamp01(ctx.tlsScore));
+      if (ctx.behavioralMeasured()) ctx.factors.put("behavioralMatch", clamp01(ctx.behavioralScore));
+      ctx.factors.put("locationRisk", 0.8 + Math.random() * 0.15);
+      ctx.factors.put("timeOfDayRisk", 0.85 + Math.random() * 0.1);
+    }
+
+    /** Only a block-speed hop is final; slower travel keeps the measured behavioral score, as before. */
+    @Override
+    boolean travelIsDefinitive(RiskContext ctx) {
+      return ctx.requiredSpeedKmh > BLOCK_SPEED_KMH;
+    }
+
+    @Override
+    void applyTravel(RiskContext ctx) {
+      ctx.overallScore = clamp01(ctx.overallScore * 0.5);
+      ctx.confidenceLevel = "low";
+      ctx.passed = false;
+      ctx.recommendation = "step_up";
+      ctx.factors.put("locationRisk", 0.1); // high risk signal
+    }
+
+    @Override
+    String activityMessage(RiskContext ctx) {
+      long pct = Math.round(ctx.overallScore * 100);
+      return ctx.passed
+        ? "Silent authentication approved (" + pct + "% confidence)"
+        : "Step-up required (" + pct + "% confidence)";
+    }
+  },
+
+  /** POST /api/ml/score: allow / step_up / block. */
+  ML_SCORE(0.35, 0.25, 0.40, 0.75, 0.72, false) {
+    @Override
+    boolean scoresBehavior(MlScoreRequest r) {
+      return hasText(r.userId);
+    }
+
+    @Override
+    void decide(RiskContext ctx) {
+      double o = ctx.overallScore;
+      if (o >= 0.72) ctx.recommendation = "allow";
+      else if (o >= 0.45) ctx.recommendation = "step_up";
+      else ctx.recommendation = "block";
+
+      if (o >= 0.72) ctx.confidenceLevel = "high";
+      else if (o >= 0.55) ctx.confidenceLevel = "medium";
+      else ctx.confidenceLevel = "low";
+      ctx.passed = o >= threshold;
+
+      if (ctx.behavioral != null) {
+        ctx.factors.put("anomalyProbability", ctx.behavioral.anomalyProbability);
+        ctx.factors.put("isAnomaly", ctx.behavioral.isAnomaly);
+        ctx.factors.put("zScore", ctx.behavioral.zScore);
+        ctx.factors.put("severity", ctx.behavioral.severity);
+      }
+    }
+
+    /** Only the block case is final; a step-up still reports the behavioral score. */
+    @Override
+    boolean travelIsDefinitive(RiskContext ctx) {
+      return ctx.requiredSpeedKmh > BLOCK_SPEED_KMH;
+    }
+
+    @Override
+    void applyTravel(RiskContext ctx) {
+      // Impossible travel is a high-risk signal (mirrors Node).
+      ctx.confidenceLevel = "low";
+      ctx.passed = false;
+      if (ctx.requiredSpeedKmh > BLOCK_SPEED_KMH) {
+        ctx.recommendation = "block";
+        ctx.overallScore = Math.min(ctx.overallScore, 0.30);
+      } else {
+        ctx.recommendation = "step_up";
+        ctx.overallScore = Math.min(ctx.overallScore, 0.49);
+      }
+    }
+
+    @Override
+    String activityMessage(RiskContext ctx) {
+      return "Risk score calculated" + (ctx.request.userId != null ? " for user " + ctx.request.userId : "");
+    }
+  };
+
+  private static final double BLOCK_SPEED_KMH = 5000.0;
+
+  public final double deviceWeight;
+  public final double tlsWeight;
+  public final double behavioralWeight;
+  /** Behavioral trust used when there is nothing to score (or scoring was skipped). */
+  public final double defaultBehavioralTrust;
+  public final double threshold;
+  /** Whether a confidence_update event is broadcast alongside the activity event. */
+  public final boolean broadcastsConfidence;
+
+  RiskProfile(double deviceWeight, double tlsWeight, double behavioralWeight,
+              double defaultBehavioralTrust, double threshold, boolean broadcastsConfidence) {
+    this.deviceWeight = deviceWeight;
+    this.tlsWeight = tlsWeight;
+    this.behavioralWeight = behavioralWeight;
+    this.defaultBehavioralTrust = defaultBehavioralTrust;
+    this.threshold = threshold;
+    this.broadcastsConfidence = broadcastsConfidence;
+  }
+
+  /** Whether the request carries enough to score behavior against the user's baseline. */
+  abstract boolean scoresBehavior(MlScoreRequest r);
+
+  /** Sets confidence, recommendation and pass/fail from {@link RiskContext#overallScore}, plus profile factors. */
+  abstract void decide(RiskContext ctx);
+
+  /** Whether detected impossible travel alone fixes the outcome, so behavioral scoring can be skipped. */
+  abstract boolean travelIsDefinitive(RiskContext ctx);
+
+  abstract void applyTravel(RiskContext ctx);
+
+  abstract String activityMessage(RiskContext ctx);
+}
@@ -0,0 +1,15 @@
+package com.authshield.server.service.risk;
+
+/** One step of a {@link RiskPipeline}. Stages communicate only through the {@link RiskContext}. */
+public interface RiskStage {
+
+  /** Stable name used for per-stage timings and stats. */
+  String name();
+
+  void apply(RiskContext ctx);
+
+  /** Whether the stage is bypassed once {@link RiskContext#decided} is set. */
+  default boolean skipWhenDecided() {
+    return false;
+  }
+}
@@ -0,0 +1,29 @@
+package com.authshield.server.service.risk;
+
+import com.authshield.server.service.MlScoringService;
+
+/**
+ * Loads device/TLS trust, the behavior vector and the baseline. Skipped when the caller pre-fetched signals
+ * (batch scoring); the behavioral lookups are left out when the outcome is already decided or the profile
+ * won't score behavior for this request.
+ */
+public class SignalFetchStage implements RiskStage {
+
+  private final MlScoringService ml;
+
+  public SignalFetchStage(MlScoringService ml) {
+    this.ml = ml;
+  }
+
+  @Override
+  public String name() {
+    return "signals";
+  }
+
+  @Override
+  public void apply(RiskContext ctx) {
+    if (ctx.signals != null) return;
+    boolean withBehavior = !ctx.decided && ctx.suppliedBehavioralScore <= 0 && ctx.profile.scoresBehavior(ctx.request);
+    ctx.signals = ml.fetchSignals(ctx.request, withBehavior);
+  }
+}
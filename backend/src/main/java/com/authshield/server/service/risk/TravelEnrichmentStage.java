@@ -0,0 +1,65 @@
+package com.authshield.server.service.risk;
+
+import com.authshield.server.dto.geo.ImpossibleTravelRequest;
+import com.authshield.server.dto.geo.ImpossibleTravelResponse;
+import com.authshield.server.dto.ml.MlScoreRequest;
+import com.authshield.server.service.ImpossibleTravelService;
+import com.authshield.server.service.IpGeoResolver;
+
+import static com.authshield.server.service.risk.RiskContext.hasText;
+
+/**
+ * Server-side impossible-travel detection when geo context is present (coordinates, or an IP the local range
+ * table covers). Runs first so a definitive travel outcome can spare the behavioral lookups and scoring.
+ */
+public class TravelEnrichmentStage implements RiskStage {
+
+  private final ImpossibleTravelService travel;
+  private final IpGeoResolver ipGeo;
+
+  public TravelEnrichmentStage(ImpossibleTravelService travel, IpGeoResolver ipGeo) {
+    this.travel = travel;
+    this.ipGeo = ipGeo;
+  }
+
+  @Override
+  public String name() {
+    return "travel";
+  }
+
+  @Override
+  public void apply(RiskContext ctx) {
+    MlScoreRequest r = ctx.request;
+    if (!hasText(r.userId) || !hasText(r.ipAddress)) return;
+    if (!((r.latitude != null && r.longitude != null) || ipGeo.covers(r.ipAddress))) return;
+
+    try {
+      ImpossibleTravelRequest it = new ImpossibleTravelRequest();
+      it.userId = r.userId;
+      it.sessionId = r.sessionId;
+      it.ipAddress = r.ipAddress;
+      it.latitude = r.latitude;
+      it.longitude = r.longitude;
+      it.city = r.city;
+      it.country = r.country;
+
+      ImpossibleTravelResponse res = travel.detectAndRecord(it);
+      if (res == null) return;
+      if (res.factors != null) {
+        // the service provides both camelCase and snake_case keys
+        ctx.factors.putAll(res.factors);
+      } else {
+        ctx.factors.put("impossible_travel", res.impossibleTravel);
+        ctx.factors.put("impossibleTravel", res.impossibleTravel);
+      }
+
+      ctx.impossibleTravel = res.impossibleTravel;
+      if (ctx.factors.get("requiredSpeedKmh") instanceof Number n) ctx.requiredSpeedKmh = n.doubleValue();
+      // A recent impossible hop earlier in the location window weighs like one into the current location.
+      if (ctx.factors.get("maxRecentHopSpeedKmh") instanceof Number n) {
+        ctx.requiredSpeedKmh = Math.max(ctx.requiredSpeedKmh, n.doubleValue());
+      }
+      if (ctx.impossibleTravel && ctx.profile.travelIsDefinitive(ctx)) ctx.decided = true;
+    } catch (Exception ignored) {}
+  }
+}
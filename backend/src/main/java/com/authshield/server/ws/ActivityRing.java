@@ -0,0 +1,49 @@
+package com.authshield.server.ws;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size, lock-free ring of the most recent events, used to replay recent activity to new connections.
+ *
+ * Writers claim a sequence number and publish into slot {@code seq & mask}; readers walk the last
+ * {@code capacity} sequence numbers and skip any slot that has already been overwritten by a newer writer or
+ * not yet published, so a snapshot never blocks broadcasters.
+ */
+final class ActivityRing {
+
+  private record Slot(long seq, LiveEvent event, String json) {}
+
+  private final AtomicReferenceArray<Slot> slots;
+  private final int mask;
+  private final int limit;
+  private final AtomicLong next = new AtomicLong();
+
+  /** Slots are rounded up to a power of two; snapshots still return at most {@code capacity} events. */
+  ActivityRing(int capacity) {
+    this.limit = Math.max(1, capacity);
+    int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+    this.slots = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+  }
+
+  void add(LiveEvent event, String json) {
+    long seq = next.getAndIncrement();
+    slots.set((int) (seq & mask), new Slot(seq, event, json));
+  }
+
+  /** Oldest-first snapshot of the retained events matching {@code sub}. */
+  List<String> snapshot(Subscription sub) {
+    long end = next.get();
+    long start = Math.max(0, end - limit);
+    List<String> out = new ArrayList<>((int) (end - start));
+    for (long seq = start; seq < end; seq++) {
+      Slot s = slots.get((int) (seq & mask));
+      if (s == null || s.seq() != seq) continue;
+      if (sub.matches(s.event())) out.add(s.json());
+    }
+    return out;
+  }
+}
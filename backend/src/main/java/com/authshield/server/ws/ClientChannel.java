@@ -0,0 +1,119 @@
+package com.authshield.server.ws;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One connected client: its session plus a bounded queue of frames waiting to be sent.
+ *
+ * Frames are only ever written by a single drain task at a time ({@link #claim()}), which is what the
+ * underlying WebSocketSession requires, and a slow client only ever backs up its own queue. A send that blocks
+ * on a stalled client is timed so {@link #sendStalled} can spot it and the hub can close the session.
+ */
+final class ClientChannel {
+
+  enum OverflowPolicy { DROP_OLDEST, DROP_NEWEST, CLOSE }
+
+  private final WebSocketSession session;
+  private final BlockingQueue<TextMessage> queue;
+  private final AtomicBoolean draining = new AtomicBoolean();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicBoolean replayed = new AtomicBoolean();
+  private volatile long sendStartedNanos;
+  private volatile Subscription subscription = Subscription.ALL;
+
+  ClientChannel(WebSocketSession session, int capacity) {
+    this.session = session;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+  }
+
+  WebSocketSession session() { return session; }
+
+  long dropped() { return dropped.get(); }
+
+  Subscription subscription() { return subscription; }
+
+  void subscription(Subscription subscription) { this.subscription = subscription; }
+
+  int queued() { return queue.size(); }
+
+  /** True the first time only; the replay snapshot is sent at most once per connection. */
+  boolean claimReplay() { return replayed.compareAndSet(false, true); }
+
+  /** Returns false if the frame was not queued (dropped, or the client is being closed). */
+  boolean offer(TextMessage msg, OverflowPolicy policy) {
+    if (!session.isOpen()) return false;
+    if (queue.offer(msg)) return true;
+    switch (policy) {
+      case DROP_OLDEST -> {
+        // Another producer may refill the slot in between; losing this frame too is acceptable for a live feed.
+        if (queue.poll() != null) dropped.incrementAndGet();
+        if (queue.offer(msg)) return true;
+        dropped.incrementAndGet();
+        return false;
+      }
+      case DROP_NEWEST -> {
+        dropped.incrementAndGet();
+        return false;
+      }
+      default -> {
+        dropped.incrementAndGet();
+        queue.clear();
+        closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+        return false;
+      }
+    }
+  }
+
+  /** True if a send has been blocked for longer than {@code limitNanos}. */
+  boolean sendStalled(long nowNanos, long limitNanos) {
+    long started = sendStartedNanos;
+    return started != 0 && nowNanos - started > limitNanos;
+  }
+
+  /** Marks this channel as being drained; false if a drain task is already running for it. */
+  boolean claim() {
+    return draining.compareAndSet(false, true);
+  }
+
+  /**
+   * Sends everything queued, then releases the claim. Re-checks the queue after releasing so a frame offered
+   * between the last poll and the release is not stranded.
+   */
+  void drain() {
+    do {
+      TextMessage msg;
+      while ((msg = queue.poll()) != null) {
+        if (!session.isOpen()) {
+          queue.clear();
+          break;
+        }
+        sendStartedNanos = System.nanoTime() | 1;
+        try {
+          session.sendMessage(msg);
+        } catch (IOException e) {
+          queue.clear();
+          closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+          break;
+        } finally {
+          sendStartedNanos = 0;
+        }
+      }
+      draining.set(false);
+    } while (!queue.isEmpty() && session.isOpen() && claim());
+  }
+
+  void closeQuietly(CloseStatus status) {
+    try {
+      session.close(status);
+    } catch (Exception ignored) {
+    }
+  }
+}
@@ -0,0 +1,282 @@
+package com.authshield.server.ws;
+
+import com.authshield.server.service.SessionTokenCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relays live events between backend replicas over Postgres LISTEN/NOTIFY.
+ *
+ * Local broadcasts are buffered and published every {@code batch-interval-ms} as one NOTIFY per batch (split to
+ * stay under the 8000-byte payload limit). Each node LISTENs on a dedicated connection opened outside the pool
+ * (it is held for the node's lifetime, so it must not take a Hikari slot), ignores its own batches and
+ * de-duplicates by event id before handing events to the local hub. NOTIFY is best effort: events published
+ * while a node's listener is reconnecting are not replayed to it.
+ *
+ * The same channel carries session token-cache invalidations (token hashes, never raw tokens), so a session
+ * revoked or re-tokened on one replica stops validating from the others' caches. Invalidations missed while
+ * reconnecting are bounded by the token cache TTL.
+ */
+@Component
+public class ClusterRelay {
+
+  private static final Logger log = LoggerFactory.getLogger(ClusterRelay.class);
+
+  /** Postgres rejects NOTIFY payloads of 8000 bytes or more; leave room for the envelope. */
+  private static final int MAX_PAYLOAD_BYTES = 7500;
+  /** SHA-256 hex hashes are 64 characters; 100 of them stay under the payload limit. */
+  private static final int INVALIDATIONS_PER_PAYLOAD = 100;
+
+  private record Outbound(String id, LiveEvent event, String json) {}
+
+  private final WebSocketHub hub;
+  private final SessionTokenCache tokenCache;
+  private final DataSource dataSource;
+  private final JdbcConnectionDetails jdbc;
+  private final ObjectMapper om;
+  private final boolean enabled;
+  private final String channel;
+  private final long batchIntervalMs;
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Queue<Outbound> outbound = new ConcurrentLinkedQueue<>();
+  private final Queue<String> invalidations = new ConcurrentLinkedQueue<>();
+  private final Cache<String, Boolean> seen = Caffeine.newBuilder()
+    .maximumSize(100_000)
+    .expireAfterWrite(Duration.ofMinutes(1))
+    .build();
+  private final AtomicLong published = new AtomicLong();
+  private final AtomicLong received = new AtomicLong();
+  private final AtomicLong duplicates = new AtomicLong();
+  private final AtomicLong invalidationsReceived = new AtomicLong();
+
+  private volatile boolean running;
+  private ScheduledExecutorService publisher;
+  private Thread listener;
+
+  public ClusterRelay(WebSocketHub hub,
+                      SessionTokenCache tokenCache,
+                      DataSource dataSource,
+                      JdbcConnectionDetails jdbc,
+                      ObjectMapper om,
+                      @Value("${authshield.ws.cluster.enabled:false}") boolean enabled,
+                      @Value("${authshield.ws.cluster.channel:authshield_live}") String channel,
+                      @Value("${authshield.ws.cluster.batch-interval-ms:50}") long batchIntervalMs) {
+    if (!channel.matches("[a-z_][a-z0-9_]*")) {
+      throw new IllegalArgumentException("authshield.ws.cluster.channel must be a lower-case identifier: " + channel);
+    }
+    this.hub = hub;
+    this.tokenCache = tokenCache;
+    this.dataSource = dataSource;
+    this.jdbc = jdbc;
+    this.om = om;
+    this.enabled = enabled;
+    this.channel = channel;
+    this.batchIntervalMs = Math.max(1, batchIntervalMs);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!enabled) return;
+    running = true;
+    hub.relayTo(this::enqueue);
+    tokenCache.relayTo(invalidations::add);
+
+    publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "ws-cluster-publish");
+      t.setDaemon(true);
+      return t;
+    });
+    publisher.scheduleWithFixedDelay(this::publish, batchIntervalMs, batchIntervalMs, TimeUnit.MILLISECONDS);
+
+    listener = new Thread(this::listen, "ws-cluster-listen");
+    listener.setDaemon(true);
+    listener.start();
+    log.info("Live feed cluster relay started on channel '{}' (node {})", channel, nodeId);
+  }
+
+  private void enqueue(LiveEvent event, String json) {
+    String id = UUID.randomUUID().toString();
+    seen.put(id, Boolean.TRUE);
+    outbound.add(new Outbound(id, event, json));
+  }
+
+  void publish() {
+    if (outbound.isEmpty() && invalidations.isEmpty()) return;
+    List<String> payloads = new ArrayList<>();
+    try {
+      ArrayNode hashes = om.createArrayNode();
+      String hash;
+      while ((hash = invalidations.poll()) != null) {
+        hashes.add(hash);
+        if (hashes.size() == INVALIDATIONS_PER_PAYLOAD) {
+          payloads.add(envelope("sessionInvalidations", hashes));
+          hashes = om.createArrayNode();
+        }
+      }
+      if (!hashes.isEmpty()) payloads.add(envelope("sessionInvalidations", hashes));
+
+      ArrayNode batch = om.createArrayNode();
+      int bytes = 0;
+      Outbound o;
+      while ((o = outbound.poll()) != null) {
+        ObjectNode e = om.createObjectNode();
+        e.put("id", o.id());
+        e.put("type", o.event().type());
+        e.put("userId", o.event().userId());
+        e.put("severity", o.event().severity() == null ? null : o.event().severity().name());
+        e.put("json", o.json());
+        int size = om.writeValueAsBytes(e).length;
+        if (size > MAX_PAYLOAD_BYTES) {
+          log.warn("Dropping live event of {} bytes from cluster relay (over NOTIFY limit)", size);
+          continue;
+        }
+        if (bytes + size > MAX_PAYLOAD_BYTES && !batch.isEmpty()) {
+          payloads.add(envelope("events", batch));
+          batch = om.createArrayNode();
+          bytes = 0;
+        }
+        batch.add(e);
+        bytes += size + 1;
+      }
+      if (!batch.isEmpty()) payloads.add(envelope("events", batch));
+
+      try (Connection c = dataSource.getConnection();
+           PreparedStatement ps = c.prepareStatement("select pg_notify(?, ?)")) {
+        for (String p : payloads) {
+          ps.setString(1, channel);
+          ps.setString(2, p);
+          ps.execute();
+          published.incrementAndGet();
+        }
+      }
+    } catch (Exception e) {
+      // Live events are transient; drop this batch rather than replay stale activity later. Dropped session
+      // invalidations expire with the token cache TTL.
+      log.warn("Cluster relay publish failed; {} batch(es) dropped", payloads.size(), e);
+    }
+  }
+
+  private String envelope(String field, ArrayNode items) throws Exception {
+    ObjectNode root = om.createObjectNode();
+    root.put("node", nodeId);
+    root.set(field, items);
+    return om.writeValueAsString(root);
+  }
+
+  private void listen() {
+    long backoffMs = 500;
+    while (running) {
+      try (Connection c = openListenConnection()) {
+        try (Statement st = c.createStatement()) {
+          st.execute("LISTEN " + channel);
+        }
+        PGConnection pg = c.unwrap(PGConnection.class);
+        backoffMs = 500;
+        while (running) {
+          PGNotification[] ns = pg.getNotifications(500);
+          if (ns == null) continue;
+          for (PGNotification n : ns) receive(n.getParameter());
+        }
+      } catch (Exception e) {
+        if (!running) return;
+        log.warn("Cluster relay listener lost its connection; retrying in {} ms", backoffMs, e);
+        try {
+          Thread.sleep(backoffMs);
+        } catch (InterruptedException ie) {
+          return;
+        }
+        backoffMs = Math.min(backoffMs * 2, 30_000);
+      }
+    }
+  }
+
+  /** Same database and credentials as the pool; keepalive so a silently dropped connection is noticed. */
+  private Connection openListenConnection() throws Exception {
+    Properties props = new Properties();
+    if (jdbc.getUsername() != null) props.setProperty("user", jdbc.getUsername());
+    if (jdbc.getPassword() != null) props.setProperty("password", jdbc.getPassword());
+    props.setProperty("tcpKeepAlive", "true");
+    props.setProperty("ApplicationName", "authshield-cluster-listen");
+    return DriverManager.getConnection(jdbc.getJdbcUrl(), props);
+  }
+
+  void receive(String payload) {
+    try {
+      JsonNode root = om.readTree(payload.getBytes(StandardCharsets.UTF_8));
+      if (nodeId.equals(root.path("node").asText())) return;
+      for (JsonNode h : root.path("sessionInvalidations")) {
+        tokenCache.invalidateHashed(h.asText());
+        invalidationsReceived.incrementAndGet();
+      }
+      for (JsonNode e : root.path("events")) {
+        String id = e.path("id").asText(null);
+        if (id == null || seen.asMap().putIfAbsent(id, Boolean.TRUE) != null) {
+          duplicates.incrementAndGet();
+          continue;
+        }
+        received.incrementAndGet();
+        LiveEvent event = LiveEvent.of(e.path("type").asText(null), e.path("userId").asText(null),
+          Severity.parse(e.path("severity").asText(null)));
+        hub.deliverLocal(event, e.path("json").asText());
+      }
+    } catch (Exception e) {
+      log.warn("Ignoring malformed cluster relay payload", e);
+    }
+  }
+
+  public Map<String,Object> stats() {
+    Map<String,Object> out = new HashMap<>();
+    out.put("enabled", enabled);
+    out.put("node", nodeId);
+    out.put("publishedBatches", published.get());
+    out.put("receivedEvents", received.get());
+    out.put("duplicates", duplicates.get());
+    out.put("sessionInvalidationsReceived", invalidationsReceived.get());
+    return out;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (!running) return;
+    running = false;
+    hub.relayTo(null);
+    tokenCache.relayTo(null);
+    publisher.shutdown();
+    publish();
+    if (listener != null) listener.interrupt();
+  }
+}
@@ -0,0 +1,41 @@
+package com.authshield.server.ws;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buffers events between coalescing ticks. A {@code confidence_update} for a user replaces any earlier one for
+ * the same user still in the buffer (only the latest score matters to the dashboard); everything else is kept
+ * in arrival order.
+ */
+final class EventCoalescer {
+
+  static final String CONFIDENCE_UPDATE = "confidence_update";
+
+  record Pending(LiveEvent event, String json) {}
+
+  private LinkedHashMap<Object, Pending> buffer = new LinkedHashMap<>();
+  private long collapsed;
+
+  synchronized void add(LiveEvent event, String json) {
+    Object key = CONFIDENCE_UPDATE.equals(event.type()) && event.userId() != null
+      ? CONFIDENCE_UPDATE + ":" + event.userId()
+      : new Object();
+    // remove + put so the replacement takes the latest position in the frame.
+    if (buffer.remove(key) != null) collapsed++;
+    buffer.put(key, new Pending(event, json));
+  }
+
+  synchronized List<Pending> drain() {
+    if (buffer.isEmpty()) return List.of();
+    Map<Object, Pending> out = buffer;
+    buffer = new LinkedHashMap<>();
+    return new ArrayList<>(out.values());
+  }
+
+  synchronized long collapsed() {
+    return collapsed;
+  }
+}
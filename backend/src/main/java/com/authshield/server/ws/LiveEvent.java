@@ -0,0 +1,9 @@
+package com.authshield.server.ws;
+
+/** Routing metadata for a broadcast frame; the payload itself is opaque to the hub. */
+public record LiveEvent(String type, String userId, Severity severity) {
+
+  public static LiveEvent of(String type, String userId, Severity severity) {
+    return new LiveEvent(type, userId, severity);
+  }
+}
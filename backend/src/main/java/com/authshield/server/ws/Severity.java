@@ -0,0 +1,25 @@
+package com.authshield.server.ws;
+
+/** Ordered severity used to filter live events; unknown or missing values are treated as {@link #LOW}. */
+public enum Severity {
+  LOW, MEDIUM, HIGH, CRITICAL;
+
+  public static Severity parse(String s) {
+    if (s == null || s.isBlank()) return null;
+    try {
+      return valueOf(s.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /** Low confidence in the user's identity is a high-severity event, and vice versa. */
+  public static Severity fromConfidenceLevel(String confidenceLevel) {
+    if (confidenceLevel == null) return LOW;
+    return switch (confidenceLevel) {
+      case "low" -> HIGH;
+      case "medium" -> MEDIUM;
+      default -> LOW;
+    };
+  }
+}
@@ -0,0 +1,27 @@
+package com.authshield.server.ws;
+
+import java.util.Set;
+
+/**
+ * What a client wants to receive. Empty sets mean "any"; a null {@code minSeverity} means every severity.
+ * New connections start with {@link #ALL}, so clients that never subscribe keep getting the full feed.
+ */
+record Subscription(Set<String> userIds, Set<String> types, Severity minSeverity) {
+
+  static final Subscription ALL = new Subscription(Set.of(), Set.of(), null);
+
+  Subscription {
+    userIds = userIds == null ? Set.of() : Set.copyOf(userIds);
+    types = types == null ? Set.of() : Set.copyOf(types);
+  }
+
+  boolean matches(LiveEvent e) {
+    if (!types.isEmpty() && !types.contains(e.type())) return false;
+    if (!userIds.isEmpty() && (e.userId() == null || !userIds.contains(e.userId()))) return false;
+    if (minSeverity != null) {
+      Severity s = e.severity() == null ? Severity.LOW : e.severity();
+      if (s.compareTo(minSeverity) < 0) return false;
+    }
+    return true;
+  }
+}
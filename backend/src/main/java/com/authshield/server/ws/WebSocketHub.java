@@ -1,28 +1,225 @@
 package com.authshield.server.ws;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.TextMessage;
 
-import java.io.IOException;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
+/**
+ * Fans JSON events out to connected dashboard clients.
+ *
+ * Broadcasting never touches a socket on the caller's thread: the payload is wrapped once, offered to every
+ * client's bounded queue and written by a per-client drain task on a virtual thread. A client whose queue is
+ * full is handled by the configured overflow policy (drop-oldest, drop-newest or close).
+ *
+ * Each client can narrow what it receives with a {@link Subscription}; events are matched against it here, so
+ * filtered-out frames are never queued or sent.
+ *
+ * A client whose socket write has been blocked for longer than {@code send-time-limit-ms} is closed by a
+ * periodic check, which frees its drain task and drops its backlog.
+ *
+ * With coalescing enabled, broadcasts are buffered and flushed once per interval as a single
+ * {@code {"type":"batch","events":[...]}} frame per client, built once per distinct subscription.
+ *
+ * The last {@code replay-size} activity events are kept in an {@link ActivityRing} and sent as one batch frame
+ * when a client first subscribes or asks for a replay, filtered by the subscription it has by then, so a freshly
+ * loaded dashboard has a populated feed without querying the DB.
+ *
+ * In cluster mode every local broadcast is also handed to {@link ClusterRelay}, which delivers events from
+ * other nodes back through {@link #deliverLocal}.
+ */
 @Component
 public class WebSocketHub {
-  private final Set<WebSocketSession> sessions = ConcurrentHashMap.newKeySet();
+  private static final String REPLAYED_TYPE = "activity";
 
-  public void add(WebSocketSession s) { sessions.add(s); }
+  private final Map<String, ClientChannel> channels = new ConcurrentHashMap<>();
+  private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+  private final int queueCapacity;
+  private final ClientChannel.OverflowPolicy overflowPolicy;
+  private final EventCoalescer coalescer;
+  private final ScheduledExecutorService ticker;
+  private final long coalesceIntervalMs;
+  private final long sendTimeLimitNanos;
+  private final ActivityRing recent;
+  private final AtomicLong stalledClosed = new AtomicLong();
+  private volatile BiConsumer<LiveEvent, String> relay;
 
-  public void remove(WebSocketSession s) { sessions.remove(s); }
+  public WebSocketHub(@Value("${authshield.ws.send-queue-capacity:256}") int queueCapacity,
+                      @Value("${authshield.ws.overflow-policy:drop-oldest}") String overflowPolicy,
+                      @Value("${authshield.ws.coalesce.enabled:false}") boolean coalesce,
+                      @Value("${authshield.ws.coalesce.interval-ms:100}") long coalesceIntervalMs,
+                      @Value("${authshield.ws.replay-size:50}") int replaySize,
+                      @Value("${authshield.ws.send-time-limit-ms:10000}") long sendTimeLimitMs) {
+    this.queueCapacity = Math.max(1, queueCapacity);
+    this.recent = replaySize > 0 ? new ActivityRing(replaySize) : null;
+    this.overflowPolicy = ClientChannel.OverflowPolicy.valueOf(overflowPolicy.trim().replace('-', '_').toUpperCase());
+    this.coalesceIntervalMs = Math.max(1, coalesceIntervalMs);
+    this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, sendTimeLimitMs));
+    this.coalescer = coalesce ? new EventCoalescer() : null;
+    this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "ws-ticker");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /** Starts the periodic tasks once construction is complete, so the schedule never sees a half-built hub. */
+  @PostConstruct
+  void start() {
+    if (coalescer != null) {
+      ticker.scheduleWithFixedDelay(this::flushCoalesced, coalesceIntervalMs, coalesceIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    if (sendTimeLimitNanos > 0) {
+      long checkMs = Math.max(100, TimeUnit.NANOSECONDS.toMillis(sendTimeLimitNanos) / 4);
+      ticker.scheduleWithFixedDelay(this::closeStalled, checkMs, checkMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public void add(WebSocketSession s) {
+    ClientChannel c = new ClientChannel(s, queueCapacity);
+    channels.put(s.getId(), c);
+  }
+
+  /** Sends the recent activity matching the client's current subscription; only the first call per client does. */
+  void replay(WebSocketSession s) {
+    ClientChannel c = channels.get(s.getId());
+    if (recent == null || c == null || !c.claimReplay()) return;
+    List<String> replay = recent.snapshot(c.subscription());
+    if (!replay.isEmpty() && c.offer(new TextMessage(batchJson(replay)), overflowPolicy)) schedule(c);
+  }
+
+  public void remove(WebSocketSession s) { channels.remove(s.getId()); }
+
+  public void broadcast(LiveEvent event, String json) {
+    deliverLocal(event, json);
+    BiConsumer<LiveEvent, String> r = relay;
+    if (r != null) r.accept(event, json);
+  }
+
+  /** Sends to clients connected to this node only. */
+  void deliverLocal(LiveEvent event, String json) {
+    if (recent != null && REPLAYED_TYPE.equals(event.type())) recent.add(event, json);
+    if (coalescer != null) {
+      coalescer.add(event, json);
+      return;
+    }
+    TextMessage msg = null;
+    for (ClientChannel c : channels.values()) {
+      if (!c.subscription().matches(event)) continue;
+      if (msg == null) msg = new TextMessage(json);
+      if (c.offer(msg, overflowPolicy)) schedule(c);
+    }
+  }
+
+  /** Sends everything buffered since the last tick: one frame per client, encoded once per subscription. */
+  void flushCoalesced() {
+    try {
+      List<EventCoalescer.Pending> pending = coalescer.drain();
+      if (pending.isEmpty()) return;
+      Map<Subscription, TextMessage> frames = new HashMap<>();
+      for (ClientChannel c : channels.values()) {
+        Subscription sub = c.subscription();
+        TextMessage frame = frames.containsKey(sub) ? frames.get(sub) : batchFrame(pending, sub);
+        frames.put(sub, frame);
+        if (frame != null && c.offer(frame, overflowPolicy)) schedule(c);
+      }
+    } catch (Exception ignored) {
+      // Never let one bad tick cancel the schedule.
+    }
+  }
 
-  public void broadcastJson(String json) {
-    for (WebSocketSession s : sessions) {
-      if (!s.isOpen()) continue;
-      try {
-        s.sendMessage(new TextMessage(json));
-      } catch (IOException ignored) {
+  /** Closes clients stuck in one send for longer than the limit; their drain task fails out and gives up. */
+  void closeStalled() {
+    long now = System.nanoTime();
+    for (ClientChannel c : channels.values()) {
+      if (c.session().isOpen() && c.sendStalled(now, sendTimeLimitNanos)) {
+        stalledClosed.incrementAndGet();
+        c.closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
       }
     }
   }
+
+  private static TextMessage batchFrame(List<EventCoalescer.Pending> pending, Subscription sub) {
+    List<String> events = new ArrayList<>(pending.size());
+    for (EventCoalescer.Pending p : pending) {
+      if (sub.matches(p.event())) events.add(p.json());
+    }
+    return events.isEmpty() ? null : new TextMessage(batchJson(events));
+  }
+
+  /** Wraps already-encoded events as {@code {"type":"batch","events":[...]}} without re-serializing them. */
+  private static String batchJson(List<String> events) {
+    StringBuilder sb = new StringBuilder(32 + events.size() * 256).append("{\"type\":\"batch\",\"events\":[");
+    for (int i = 0; i < events.size(); i++) {
+      if (i > 0) sb.append(',');
+      sb.append(events.get(i));
+    }
+    return sb.append("]}").toString();
+  }
+
+  /** Queues a frame for one client only (protocol replies). */
+  public void send(WebSocketSession s, String json) {
+    ClientChannel c = channels.get(s.getId());
+    if (c != null && c.offer(new TextMessage(json), overflowPolicy)) schedule(c);
+  }
+
+  void relayTo(BiConsumer<LiveEvent, String> relay) {
+    this.relay = relay;
+  }
+
+  void subscribe(WebSocketSession s, Subscription subscription) {
+    ClientChannel c = channels.get(s.getId());
+    if (c != null) c.subscription(subscription);
+  }
+
+  public Map<String,Object> stats() {
+    long queued = 0, dropped = 0;
+    int filtered = 0;
+    for (ClientChannel c : channels.values()) {
+      queued += c.queued();
+      dropped += c.dropped();
+      if (c.subscription() != Subscription.ALL) filtered++;
+    }
+    Map<String,Object> out = new HashMap<>();
+    out.put("clients", channels.size());
+    out.put("filteredClients", filtered);
+    out.put("queued", queued);
+    out.put("dropped", dropped);
+    out.put("closedStalled", stalledClosed.get());
+    out.put("overflowPolicy", overflowPolicy.name().toLowerCase().replace('_', '-'));
+    out.put("coalescing", coalescer != null);
+    if (coalescer != null) out.put("collapsedConfidenceUpdates", coalescer.collapsed());
+    return out;
+  }
+
+  private void schedule(ClientChannel c) {
+    if (!c.claim()) return;
+    try {
+      dispatcher.execute(c::drain);
+    } catch (RejectedExecutionException e) {
+      // Shutting down.
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    ticker.shutdown();
+    if (coalescer != null) flushCoalesced();
+    dispatcher.shutdown();
+  }
 }
@@ -1,16 +1,36 @@
 package com.authshield.server.ws;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Client protocol (all optional; a client that sends nothing receives every event):
+ * <pre>
+ * {"action":"subscribe","userIds":["u1"],"types":["activity"],"minSeverity":"high"}
+ * {"action":"unsubscribe"}   // back to everything
+ * {"action":"replay"}        // recent activity, for clients that never subscribe
+ * {"action":"ping"}
+ * </pre>
+ * Omitted or empty filters match anything. Each subscribe replaces the previous one. The first subscribe (or
+ * replay) is followed by one batch frame of recent activity matching the subscription.
+ */
 @Component
 public class WsHandler extends TextWebSocketHandler {
 
   private final WebSocketHub hub;
+  private final ObjectMapper om;
 
-  public WsHandler(WebSocketHub hub) {
+  public WsHandler(WebSocketHub hub, ObjectMapper om) {
     this.hub = hub;
+    this.om = om;
   }
 
   @Override
@@ -25,6 +45,59 @@ public class WsHandler extends TextWebSocketHandler {
 
   @Override
   protected void handleTextMessage(WebSocketSession session, TextMessage message) {
-    // Client does not need to send messages for this PoC, but we accept pings.
+    JsonNode msg;
+    try {
+      msg = om.readTree(message.getPayload());
+    } catch (Exception e) {
+      reply(session, Map.of("type", "error", "error", "Malformed message"));
+      return;
+    }
+    String action = msg.path("action").asText("");
+    switch (action) {
+      case "subscribe" -> {
+        String minSeverity = msg.path("minSeverity").asText(null);
+        Severity severity = Severity.parse(minSeverity);
+        if (minSeverity != null && !minSeverity.isBlank() && severity == null) {
+          reply(session, Map.of("type", "error", "error", "Unknown severity: " + minSeverity));
+          return;
+        }
+        Subscription sub = new Subscription(strings(msg.get("userIds")), strings(msg.get("types")), severity);
+        hub.subscribe(session, sub);
+        reply(session, subscribed(sub));
+        hub.replay(session);
+      }
+      case "unsubscribe" -> {
+        hub.subscribe(session, Subscription.ALL);
+        reply(session, subscribed(Subscription.ALL));
+      }
+      case "replay" -> hub.replay(session);
+      case "ping" -> reply(session, Map.of("type", "pong"));
+      default -> reply(session, Map.of("type", "error", "error", "Unknown action: " + action));
+    }
+  }
+
+  private static Set<String> strings(JsonNode node) {
+    Set<String> out = new LinkedHashSet<>();
+    if (node == null || !node.isArray()) return out;
+    for (JsonNode n : node) {
+      if (n.isTextual() && !n.asText().isBlank()) out.add(n.asText());
+    }
+    return out;
+  }
+
+  private static Map<String,Object> subscribed(Subscription sub) {
+    Map<String,Object> out = new HashMap<>();
+    out.put("type", "subscribed");
+    out.put("userIds", sub.userIds());
+    out.put("types", sub.types());
+    out.put("minSeverity", sub.minSeverity() == null ? null : sub.minSeverity().name().toLowerCase());
+    return out;
+  }
+
+  private void reply(WebSocketSession session, Map<String,Object> body) {
+    try {
+      hub.send(session, om.writeValueAsString(body));
+    } catch (Exception ignored) {
+    }
   }
 }
@@ -0,0 +1,4 @@
+-- behavioral_score is null when the risk pipeline decided on impossible travel alone and skipped behavioral
+-- scoring; storing the profile default there would read as a measured match. Propagates to every partition.
+
+ALTER TABLE risk_scores ALTER COLUMN behavioral_score DROP NOT NULL;
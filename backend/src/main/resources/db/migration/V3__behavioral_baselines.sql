@@ -0,0 +1,55 @@
+-- Incrementally maintained per-user behavioral baselines.
+-- One row per user holding running count/mean/M2 (Welford) for each scored feature, so scoring can
+-- read a user's baseline with a single primary-key lookup instead of re-aggregating behavioral_patterns.
+
+CREATE TABLE IF NOT EXISTS behavioral_baselines (
+  user_id                 varchar PRIMARY KEY REFERENCES users(id),
+  pattern_count           bigint NOT NULL DEFAULT 0,
+  mouse_speed_n           bigint NOT NULL DEFAULT 0,
+  mouse_speed_mean        double precision NOT NULL DEFAULT 0,
+  mouse_speed_m2          double precision NOT NULL DEFAULT 0,
+  mouse_accel_n           bigint NOT NULL DEFAULT 0,
+  mouse_accel_mean        double precision NOT NULL DEFAULT 0,
+  mouse_accel_m2          double precision NOT NULL DEFAULT 0,
+  key_hold_n              bigint NOT NULL DEFAULT 0,
+  key_hold_mean           double precision NOT NULL DEFAULT 0,
+  key_hold_m2             double precision NOT NULL DEFAULT 0,
+  flight_time_n           bigint NOT NULL DEFAULT 0,
+  flight_time_mean        double precision NOT NULL DEFAULT 0,
+  flight_time_m2          double precision NOT NULL DEFAULT 0,
+  typing_speed_n          bigint NOT NULL DEFAULT 0,
+  typing_speed_mean       double precision NOT NULL DEFAULT 0,
+  typing_speed_m2         double precision NOT NULL DEFAULT 0,
+  straight_line_n         bigint NOT NULL DEFAULT 0,
+  straight_line_mean      double precision NOT NULL DEFAULT 0,
+  straight_line_m2        double precision NOT NULL DEFAULT 0,
+  curve_complexity_n      bigint NOT NULL DEFAULT 0,
+  curve_complexity_mean   double precision NOT NULL DEFAULT 0,
+  curve_complexity_m2     double precision NOT NULL DEFAULT 0,
+  updated_at              timestamptz NOT NULL DEFAULT now()
+);
+
+-- Backfill from existing history. M2 (sum of squared deviations) = population variance * n.
+INSERT INTO behavioral_baselines (
+  user_id, pattern_count,
+  mouse_speed_n, mouse_speed_mean, mouse_speed_m2,
+  mouse_accel_n, mouse_accel_mean, mouse_accel_m2,
+  key_hold_n, key_hold_mean, key_hold_m2,
+  flight_time_n, flight_time_mean, flight_time_m2,
+  typing_speed_n, typing_speed_mean, typing_speed_m2,
+  straight_line_n, straight_line_mean, straight_line_m2,
+  curve_complexity_n, curve_complexity_mean, curve_complexity_m2
+)
+SELECT
+  user_id, count(*),
+  count(avg_mouse_speed), coalesce(avg(avg_mouse_speed), 0), coalesce(var_pop(avg_mouse_speed) * count(avg_mouse_speed), 0),
+  count(avg_mouse_acceleration), coalesce(avg(avg_mouse_acceleration), 0), coalesce(var_pop(avg_mouse_acceleration) * count(avg_mouse_acceleration), 0),
+  count(avg_key_hold_time), coalesce(avg(avg_key_hold_time), 0), coalesce(var_pop(avg_key_hold_time) * count(avg_key_hold_time), 0),
+  count(avg_flight_time), coalesce(avg(avg_flight_time), 0), coalesce(var_pop(avg_flight_time) * count(avg_flight_time), 0),
+  count(typing_speed), coalesce(avg(typing_speed), 0), coalesce(var_pop(typing_speed) * count(typing_speed), 0),
+  count(straight_line_ratio), coalesce(avg(straight_line_ratio), 0), coalesce(var_pop(straight_line_ratio) * count(straight_line_ratio), 0),
+  count(curve_complexity), coalesce(avg(curve_complexity), 0), coalesce(var_pop(curve_complexity) * count(curve_complexity), 0)
+FROM behavioral_patterns
+WHERE user_id IS NOT NULL
+GROUP BY user_id
+ON CONFLICT (user_id) DO NOTHING;
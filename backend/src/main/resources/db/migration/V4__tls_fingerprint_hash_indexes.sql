@@ -0,0 +1,3 @@
+-- Point lookups by JA3/JA4 hash for TLS trust scoring (previously a top-500 scan ordered by last_seen).
+CREATE INDEX IF NOT EXISTS idx_tls_fingerprints_ja3_hash ON tls_fingerprints (ja3_hash, last_seen DESC) WHERE ja3_hash IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_tls_fingerprints_ja4_hash ON tls_fingerprints (ja4_hash, last_seen DESC) WHERE ja4_hash IS NOT NULL;
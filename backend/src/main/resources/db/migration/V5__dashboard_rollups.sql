@@ -0,0 +1,56 @@
+-- Per-minute dashboard rollups plus all-time totals, maintained by the application as rows are written
+-- (see DashboardRollupService). The dashboard reads these instead of scanning the event tables.
+--
+-- metric is the source table name. Score columns are only populated for risk_scores
+-- (bands: high >= 0.7, medium 0.4..0.7, low < 0.4 on overall_score).
+
+CREATE TABLE IF NOT EXISTS dashboard_rollups (
+  metric        text NOT NULL,
+  bucket_start  timestamptz NOT NULL,
+  event_count   bigint NOT NULL DEFAULT 0,
+  high_count    bigint NOT NULL DEFAULT 0,
+  med_count     bigint NOT NULL DEFAULT 0,
+  low_count     bigint NOT NULL DEFAULT 0,
+  score_sum     double precision NOT NULL DEFAULT 0,
+  score_min     double precision,
+  score_max     double precision,
+  PRIMARY KEY (metric, bucket_start)
+);
+
+CREATE TABLE IF NOT EXISTS dashboard_totals (
+  metric        text PRIMARY KEY,
+  event_count   bigint NOT NULL DEFAULT 0,
+  high_count    bigint NOT NULL DEFAULT 0,
+  med_count     bigint NOT NULL DEFAULT 0,
+  low_count     bigint NOT NULL DEFAULT 0,
+  score_sum     double precision NOT NULL DEFAULT 0,
+  score_min     double precision,
+  score_max     double precision
+);
+
+-- Backfill from existing data.
+INSERT INTO dashboard_rollups (metric, bucket_start, event_count, high_count, med_count, low_count, score_sum, score_min, score_max)
+SELECT 'risk_scores', date_trunc('minute', created_at), count(*),
+       count(*) FILTER (WHERE overall_score >= 0.7),
+       count(*) FILTER (WHERE overall_score >= 0.4 AND overall_score < 0.7),
+       count(*) FILTER (WHERE overall_score < 0.4),
+       coalesce(sum(overall_score), 0), min(overall_score), max(overall_score)
+FROM risk_scores GROUP BY 2
+ON CONFLICT DO NOTHING;
+
+INSERT INTO dashboard_rollups (metric, bucket_start, event_count)
+SELECT 'users', date_trunc('minute', created_at), count(*) FROM users GROUP BY 2
+UNION ALL
+SELECT 'device_profiles', date_trunc('minute', first_seen), count(*) FROM device_profiles GROUP BY 2
+UNION ALL
+SELECT 'sessions', date_trunc('minute', created_at), count(*) FROM sessions GROUP BY 2
+UNION ALL
+SELECT 'anomaly_alerts', date_trunc('minute', created_at), count(*) FROM anomaly_alerts GROUP BY 2
+UNION ALL
+SELECT 'authentication_events', date_trunc('minute', created_at), count(*) FROM authentication_events GROUP BY 2
+ON CONFLICT DO NOTHING;
+
+INSERT INTO dashboard_totals (metric, event_count, high_count, med_count, low_count, score_sum, score_min, score_max)
+SELECT metric, sum(event_count), sum(high_count), sum(med_count), sum(low_count), sum(score_sum), min(score_min), max(score_max)
+FROM dashboard_rollups GROUP BY metric
+ON CONFLICT DO NOTHING;
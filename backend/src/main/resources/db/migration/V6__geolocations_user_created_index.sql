@@ -0,0 +1,2 @@
+-- Last-known-location lookups for impossible-travel detection (cache misses) read the newest row per user.
+CREATE INDEX IF NOT EXISTS idx_geolocations_user_created ON geolocations (user_id, created_at DESC);
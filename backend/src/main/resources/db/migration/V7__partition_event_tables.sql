@@ -0,0 +1,96 @@
+-- Range-partition the append-only event tables by month on created_at, so retention is a cheap
+-- DETACH/DROP of whole partitions and recent-row queries only touch the newest partitions.
+--
+-- Partitions are named <table>_pYYYYMM and cover [month start, next month start) in UTC.
+-- PartitionMaintenanceService pre-creates upcoming months and drops expired ones; it uses
+-- authshield_create_month_partition below, so both paths create identical partitions.
+--
+-- Each table also gets a <table>_default partition, so a row outside the created months (a historical
+-- created_at from /bulk, or a month maintenance didn't get to) is kept instead of failing its whole insert.
+-- It is meant to stay empty: creating a month's partition moves that month's parked rows into it, and
+-- PartitionMaintenanceService reports whatever is left.
+--
+-- Partitioned tables can't enforce uniqueness without the partition key, so each primary key becomes
+-- (id, created_at) (ids are still random UUIDs) and the legacy unique constraint on
+-- geolocations.ip_address is dropped (see V2: a user may come back from the same IP).
+--
+-- Existing rows are copied into the new tables inside this migration; expect it to take a while on
+-- large installs.
+
+CREATE OR REPLACE FUNCTION authshield_create_month_partition(parent text, month_start date)
+RETURNS text LANGUAGE plpgsql AS $$
+DECLARE
+  part text := parent || '_p' || to_char(month_start, 'YYYYMM');
+  dflt text := parent || '_default';
+  lo timestamptz := month_start::timestamp AT TIME ZONE 'UTC';
+  hi timestamptz := (month_start + interval '1 month')::timestamp AT TIME ZONE 'UTC';
+  parked boolean := false;
+BEGIN
+  IF to_regclass(quote_ident(part)) IS NOT NULL THEN
+    RETURN part;
+  END IF;
+  IF to_regclass(quote_ident(dflt)) IS NOT NULL THEN
+    EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE created_at >= %L AND created_at < %L)', dflt, lo, hi)
+      INTO parked;
+  END IF;
+  IF parked THEN
+    -- Postgres won't add a partition while the default one holds rows in its range: build it standalone,
+    -- move the rows over and attach it (which adds the parent's indexes and foreign keys).
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', part, parent);
+    EXECUTE format('WITH moved AS (DELETE FROM %I WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', dflt, lo, hi, part);
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', parent, part, lo, hi);
+  ELSE
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)', part, parent, lo, hi);
+  END IF;
+  RETURN part;
+END $$;
+
+CREATE OR REPLACE FUNCTION authshield_partition_by_month(tbl text)
+RETURNS void LANGUAGE plpgsql AS $$
+DECLARE
+  legacy text := tbl || '_unpartitioned';
+  m date;
+  last_month date := (date_trunc('month', now() AT TIME ZONE 'UTC') + interval '2 months')::date;
+BEGIN
+  EXECUTE format('ALTER TABLE %I RENAME TO %I', tbl, legacy);
+  EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (created_at)',
+                 tbl, legacy);
+
+  EXECUTE format('SELECT date_trunc(''month'', min(created_at) AT TIME ZONE ''UTC'')::date FROM %I', legacy) INTO m;
+  m := coalesce(m, date_trunc('month', now() AT TIME ZONE 'UTC')::date);
+  WHILE m <= last_month LOOP
+    PERFORM authshield_create_month_partition(tbl, m);
+    m := (m + interval '1 month')::date;
+  END LOOP;
+
+  EXECUTE format('CREATE TABLE %I PARTITION OF %I DEFAULT', tbl || '_default', tbl);
+
+  EXECUTE format('INSERT INTO %I SELECT * FROM %I', tbl, legacy);
+  EXECUTE format('DROP TABLE %I', legacy);
+
+  EXECUTE format('ALTER TABLE %I ADD PRIMARY KEY (id, created_at)', tbl);
+  -- Newest-first listings (findTop200ByOrderByCreatedAtDesc) merge-append the per-partition indexes.
+  EXECUTE format('CREATE INDEX %I ON %I (created_at DESC)', 'idx_' || tbl || '_created', tbl);
+END $$;
+
+SELECT authshield_partition_by_month('authentication_events');
+ALTER TABLE authentication_events
+  ADD FOREIGN KEY (user_id) REFERENCES users(id),
+  ADD FOREIGN KEY (device_profile_id) REFERENCES device_profiles(id),
+  ADD FOREIGN KEY (tls_fingerprint_id) REFERENCES tls_fingerprints(id);
+
+SELECT authshield_partition_by_month('risk_scores');
+ALTER TABLE risk_scores ADD FOREIGN KEY (user_id) REFERENCES users(id);
+
+SELECT authshield_partition_by_month('anomaly_alerts');
+ALTER TABLE anomaly_alerts ADD FOREIGN KEY (user_id) REFERENCES users(id);
+
+SELECT authshield_partition_by_month('audit_logs');
+ALTER TABLE audit_logs ADD FOREIGN KEY (user_id) REFERENCES users(id);
+
+SELECT authshield_partition_by_month('geolocations');
+-- Recreates V6's index on the partitioned table.
+CREATE INDEX IF NOT EXISTS idx_geolocations_user_created ON geolocations (user_id, created_at DESC);
+
+DROP FUNCTION authshield_partition_by_month(text);
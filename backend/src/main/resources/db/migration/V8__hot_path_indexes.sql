@@ -0,0 +1,35 @@
+-- Indexes for the filters and orderings the repositories actually use. Each one matches a finder's
+-- (equality column, sort column) so Postgres can walk the index in order and stop at the limit.
+-- QueryPlanRegressionTest EXPLAINs every repository finder on a seeded database to catch regressions.
+--
+-- Already covered elsewhere: tls_fingerprints ja3/ja4 hash lookups (V4), geolocations (user_id, created_at)
+-- and created_at DESC on the partitioned event tables (V7).
+
+-- BehavioralPatternRepository.findByUserIdOrderByCreatedAtDesc (baseline rebuilds)
+CREATE INDEX IF NOT EXISTS idx_behavioral_patterns_user_created ON behavioral_patterns (user_id, created_at DESC);
+
+-- DeviceProfileRepository.findByUserIdOrderByLastSeenDesc (device trust on every score)
+CREATE INDEX IF NOT EXISTS idx_device_profiles_user_last_seen ON device_profiles (user_id, last_seen DESC);
+
+-- TlsFingerprintRepository: per-user listing, plus the newest-first TlsTrustIndex preload (findTrustViews).
+-- The preload only reads the TrustView columns, so it can be an index-only scan. The trailing id also serves
+-- the (last_seen, id) keyset pages of the list endpoint.
+CREATE INDEX IF NOT EXISTS idx_tls_fingerprints_user_last_seen ON tls_fingerprints (user_id, last_seen DESC);
+CREATE INDEX IF NOT EXISTS idx_tls_fingerprints_last_seen_id ON tls_fingerprints (last_seen DESC, id DESC)
+  INCLUDE (ja3_hash, ja4_hash, trust_score);
+
+-- RiskScoreRepository.findByUserIdOrderByCreatedAtDesc (created on every partition)
+CREATE INDEX IF NOT EXISTS idx_risk_scores_user_created ON risk_scores (user_id, created_at DESC);
+
+-- GeolocationRepository.findTopByIpAddressOrderByCreatedAtDesc (the unique ip_address index went away in V7)
+CREATE INDEX IF NOT EXISTS idx_geolocations_ip_created ON geolocations (ip_address, created_at DESC);
+
+-- IpReputationRepository.findByBlacklistedTrueOrderByLastUpdatedDesc: blacklisted rows are a small minority.
+CREATE INDEX IF NOT EXISTS idx_ip_reputations_blacklisted ON ip_reputations (last_updated DESC) WHERE blacklisted;
+
+-- SessionRepository.findTop200ByOrderByLastActivityDesc / findByUserIdOrderByLastActivityDesc
+CREATE INDEX IF NOT EXISTS idx_sessions_last_activity ON sessions (last_activity DESC);
+CREATE INDEX IF NOT EXISTS idx_sessions_user_last_activity ON sessions (user_id, last_activity DESC);
+
+-- FlaggedSessionRepository.findTop200ByOrderByCreatedAtDesc
+CREATE INDEX IF NOT EXISTS idx_flagged_sessions_created ON flagged_sessions (created_at DESC);
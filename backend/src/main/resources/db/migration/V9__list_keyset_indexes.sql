@@ -0,0 +1,10 @@
+-- Keyset pagination on the list endpoints (KeysetLists): each list is ordered (timestamp DESC, id DESC) and a
+-- page starts with "ts <= :at and (ts < :at or id < :id)", so a matching composite index turns every page,
+-- and the NDJSON export, into an ordered index range scan that stops at the limit.
+
+CREATE INDEX IF NOT EXISTS idx_users_created_id ON users (created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_device_profiles_last_seen_id ON device_profiles (last_seen DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_behavioral_patterns_created_id ON behavioral_patterns (created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_ab_experiments_created_id ON ab_experiments (created_at DESC, id DESC);
+
+-- tls_fingerprints already has (last_seen DESC, id DESC) from V8.
@@ -0,0 +1,352 @@
+package com.authshield.server.repo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fails the build when a repository finder's SQL is planned with a sequential scan over a large relation, i.e. a
+ * missing or unusable index (see V8/V9).
+ *
+ * The schema comes from the real Flyway migrations on a Postgres container, seeded so every table is well above
+ * {@link #MIN_ROWS} and then ANALYZEd. Each finder is invoked for real and the SQL Hibernate sends is captured
+ * with a {@link StatementInspector}, so a changed finder is checked as it now is. The captured statement is
+ * EXPLAINed as a generic plan (what a prepared statement gets regardless of the bound values), with row limits
+ * inlined as the finder uses them. Every query method declared on a repository must have a probe here, or be
+ * listed in {@link #FULL_SCANS} with the reason it reads the whole table.
+ *
+ * Needs Docker; skipped without it.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanRegressionTest {
+
+  /** Relations below this many (estimated) rows may be seq-scanned; that's cheaper than an index there. */
+  private static final long MIN_ROWS = 10_000;
+  private static final int USERS = 20_000;
+
+  @Container
+  @ServiceConnection
+  static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+  private static final SqlCapture SQL = new SqlCapture();
+
+  @TestConfiguration
+  static class CaptureConfig {
+    @Bean
+    HibernatePropertiesCustomizer statementCapture() {
+      return props -> props.put(AvailableSettings.STATEMENT_INSPECTOR, SQL);
+    }
+  }
+
+  /** Records the SQL Hibernate prepares on the current thread while a capture is open. */
+  static final class SqlCapture implements StatementInspector {
+    private final ThreadLocal<List<String>> open = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+      List<String> out = open.get();
+      if (out != null) out.add(sql);
+      return sql;
+    }
+
+    List<String> during(Runnable call) {
+      List<String> out = new ArrayList<>();
+      open.set(out);
+      try {
+        call.run();
+      } finally {
+        open.remove();
+      }
+      return out;
+    }
+  }
+
+  /** Stream exports read every row by design: a seq scan feeding the server-side cursor is the right plan. */
+  private static final Map<String, String> FULL_SCANS = Map.of(
+    "AbExperimentRepository.streamByOrderByCreatedAtDescIdDesc", "NDJSON export",
+    "BehavioralPatternRepository.streamByOrderByCreatedAtDescIdDesc", "NDJSON export",
+    "BehavioralPatternRepository.streamSummaries", "NDJSON export",
+    "DeviceProfileRepository.streamByOrderByLastSeenDescIdDesc", "NDJSON export",
+    "DeviceProfileRepository.streamSummaries", "NDJSON export",
+    "TlsFingerprintRepository.streamByOrderByLastSeenDescIdDesc", "NDJSON export",
+    "TlsFingerprintRepository.streamSummaries", "NDJSON export",
+    "UserRepository.streamSummaries", "NDJSON export"
+  );
+
+  /** One finder invocation; {@code limit} is the row limit it passes (inlined into the EXPLAINed SQL), 0 for none. */
+  private record Probe(String finder, int limit, Runnable call) {}
+
+  @Autowired ApplicationContext context;
+  @Autowired JdbcTemplate jdbc;
+  @Autowired TransactionTemplate tx;
+  @Autowired ObjectMapper om;
+
+  @Autowired AbExperimentRepository experiments;
+  @Autowired AdminSettingRepository settings;
+  @Autowired AnomalyAlertRepository alerts;
+  @Autowired AuditLogRepository auditLogs;
+  @Autowired AuthenticationEventRepository authEvents;
+  @Autowired BehavioralBaselineRepository baselines;
+  @Autowired BehavioralPatternRepository patterns;
+  @Autowired DeviceProfileRepository devices;
+  @Autowired FlaggedSessionRepository flagged;
+  @Autowired GeolocationRepository geos;
+  @Autowired IpReputationRepository ipReputations;
+  @Autowired RiskScoreRepository riskScores;
+  @Autowired SessionRepository sessions;
+  @Autowired TlsFingerprintRepository tls;
+  @Autowired UserRepository users;
+
+  private List<Probe> probes() {
+    String user = "u1";
+    OffsetDateTime at = OffsetDateTime.now();
+    PageRequest page = PageRequest.ofSize(200);
+    return List.of(
+      new Probe("AbExperimentRepository.findByOrderByCreatedAtDescIdDesc", 200, () -> experiments.findByOrderByCreatedAtDescIdDesc(page)),
+      new Probe("AbExperimentRepository.findPageAfter", 200, () -> experiments.findPageAfter(at, "x", page)),
+      new Probe("AdminSettingRepository.findBySettingKey", 0, () -> settings.findBySettingKey("key1")),
+      new Probe("AnomalyAlertRepository.findTop200ByOrderByCreatedAtDesc", 200, alerts::findTop200ByOrderByCreatedAtDesc),
+      new Probe("AuditLogRepository.findTop500ByOrderByCreatedAtDesc", 500, auditLogs::findTop500ByOrderByCreatedAtDesc),
+      new Probe("AuthenticationEventRepository.findTop200ByOrderByCreatedAtDesc", 200, authEvents::findTop200ByOrderByCreatedAtDesc),
+      new Probe("BehavioralBaselineRepository.ensureExists", 0, () -> baselines.ensureExists(user)),
+      new Probe("BehavioralBaselineRepository.findForUpdate", 0, () -> baselines.findForUpdate(user)),
+      new Probe("BehavioralPatternRepository.findByUserIdOrderByCreatedAtDesc", 0, () -> patterns.findByUserIdOrderByCreatedAtDesc(user)),
+      new Probe("BehavioralPatternRepository.findByOrderByCreatedAtDescIdDesc", 200, () -> patterns.findByOrderByCreatedAtDescIdDesc(page)),
+      new Probe("BehavioralPatternRepository.findPageAfter", 200, () -> patterns.findPageAfter(at, "x", page)),
+      new Probe("BehavioralPatternRepository.findSummaries", 200, () -> patterns.findSummaries(page)),
+      new Probe("BehavioralPatternRepository.findSummariesAfter", 200, () -> patterns.findSummariesAfter(at, "x", page)),
+      new Probe("DeviceProfileRepository.findByFingerprint", 0, () -> devices.findByFingerprint("fp1")),
+      new Probe("DeviceProfileRepository.findByUserIdOrderByLastSeenDesc", 0, () -> devices.findByUserIdOrderByLastSeenDesc(user)),
+      new Probe("DeviceProfileRepository.findByOrderByLastSeenDescIdDesc", 200, () -> devices.findByOrderByLastSeenDescIdDesc(page)),
+      new Probe("DeviceProfileRepository.findPageAfter", 200, () -> devices.findPageAfter(at, "x", page)),
+      new Probe("DeviceProfileRepository.findSummaries", 200, () -> devices.findSummaries(page)),
+      new Probe("DeviceProfileRepository.findSummariesAfter", 200, () -> devices.findSummariesAfter(at, "x", page)),
+      new Probe("FlaggedSessionRepository.findTop200ByOrderByCreatedAtDesc", 200, flagged::findTop200ByOrderByCreatedAtDesc),
+      new Probe("GeolocationRepository.findTopByIpAddressOrderByCreatedAtDesc", 1, () -> geos.findTopByIpAddressOrderByCreatedAtDesc("10.0.0.1")),
+      new Probe("GeolocationRepository.findTopByUserIdOrderByCreatedAtDesc", 1, () -> geos.findTopByUserIdOrderByCreatedAtDesc(user)),
+      new Probe("GeolocationRepository.findByUserIdOrderByCreatedAtDesc", 16, () -> geos.findByUserIdOrderByCreatedAtDesc(user, PageRequest.ofSize(16))),
+      new Probe("IpReputationRepository.findByIpAddress", 0, () -> ipReputations.findByIpAddress("10.0.0.1")),
+      new Probe("IpReputationRepository.findByBlacklistedTrueOrderByLastUpdatedDesc", 0, ipReputations::findByBlacklistedTrueOrderByLastUpdatedDesc),
+      new Probe("RiskScoreRepository.findTop200ByOrderByCreatedAtDesc", 200, riskScores::findTop200ByOrderByCreatedAtDesc),
+      new Probe("RiskScoreRepository.findByUserIdOrderByCreatedAtDesc", 0, () -> riskScores.findByUserIdOrderByCreatedAtDesc(user)),
+      new Probe("SessionRepository.findTop200ByOrderByLastActivityDesc", 200, sessions::findTop200ByOrderByLastActivityDesc),
+      new Probe("SessionRepository.findByUserIdOrderByLastActivityDesc", 0, () -> sessions.findByUserIdOrderByLastActivityDesc(user)),
+      new Probe("SessionRepository.findByToken", 0, () -> sessions.findByToken("tok1")),
+      new Probe("TlsFingerprintRepository.findByUserIdOrderByLastSeenDesc", 0, () -> tls.findByUserIdOrderByLastSeenDesc(user)),
+      new Probe("TlsFingerprintRepository.findTrustViews", 1000, () -> tls.findTrustViews(PageRequest.ofSize(1000))),
+      new Probe("TlsFingerprintRepository.findTrustViewsByHash", 1, () -> tls.findTrustViewsByHash("ja3-1", PageRequest.ofSize(1))),
+      new Probe("TlsFingerprintRepository.findTrustViewsByIdIn", 0, () -> tls.findTrustViewsByIdIn(List.of("t1", "t2"))),
+      new Probe("TlsFingerprintRepository.findByOrderByLastSeenDescIdDesc", 200, () -> tls.findByOrderByLastSeenDescIdDesc(page)),
+      new Probe("TlsFingerprintRepository.findPageAfter", 200, () -> tls.findPageAfter(at, "x", page)),
+      new Probe("TlsFingerprintRepository.findSummaries", 200, () -> tls.findSummaries(page)),
+      new Probe("TlsFingerprintRepository.findSummariesAfter", 200, () -> tls.findSummariesAfter(at, "x", page)),
+      new Probe("UserRepository.findByUsername", 0, () -> users.findByUsername("user1")),
+      new Probe("UserRepository.findSummaries", 200, () -> users.findSummaries(page)),
+      new Probe("UserRepository.findSummariesAfter", 200, () -> users.findSummariesAfter(at, "x", page))
+    );
+  }
+
+  /**
+   * Partitioned tables get all rows in the current month's partition (stamped from its first instant, UTC), so
+   * that partition is as large as the table.
+   */
+  private static final String MONTH = "(date_trunc('month', now() at time zone 'UTC') at time zone 'UTC')";
+  private static final String USER_OF_I = "'u' || (i % " + USERS + " + 1)";
+
+  private static final List<String> SEED = List.of(
+    "insert into users (id, username, password, email, created_at) " +
+      "select 'u' || i, 'user' || i, 'x', 'user' || i || '@example.com', now() - i * interval '1 minute' " +
+      "from generate_series(1, " + USERS + ") i",
+    "insert into device_profiles (id, user_id, fingerprint, platform, trust_score, seen_count, first_seen, last_seen) " +
+      "select 'd' || i, " + USER_OF_I + ", 'fp' || i, 'Linux', 0.5, 1, now() - i * interval '1 minute', " +
+      "now() - i * interval '1 second' from generate_series(1, 40000) i",
+    "insert into tls_fingerprints (id, user_id, device_profile_id, ja3_hash, ja4_hash, tls_version, trust_score, last_seen) " +
+      "select 't' || i, " + USER_OF_I + ", 'd' || i, 'ja3-' || i, 'ja4-' || i, '1.3', 0.5, " +
+      "now() - i * interval '1 second' from generate_series(1, 40000) i",
+    "insert into behavioral_patterns (id, user_id, session_id, avg_mouse_speed, typing_speed, sample_count, " +
+      "confidence_score, raw_data, created_at) " +
+      "select 'p' || i, " + USER_OF_I + ", 's' || i, random() * 100, random() * 10, 10, 0.5, '{}'::jsonb, " +
+      "now() - i * interval '1 second' from generate_series(1, 100000) i",
+    "insert into behavioral_baselines (user_id) select 'u' || i from generate_series(1, " + USERS + ") i",
+    "insert into sessions (id, user_id, token, last_activity, expires_at, created_at) " +
+      "select 's' || i, " + USER_OF_I + ", 'tok' || i, now() - i * interval '1 second', now() + interval '8 hours', " +
+      "now() - i * interval '1 second' from generate_series(1, 40000) i",
+    "insert into flagged_sessions (id, session_id, user_id, reason, created_at) " +
+      "select 'f' || i, 's' || i, " + USER_OF_I + ", 'test', now() - i * interval '1 second' " +
+      "from generate_series(1, 40000) i",
+    "insert into ip_reputations (id, ip_address, reputation_score, blacklisted, last_updated) " +
+      "select 'ip' || i, '10.' || (i / 65536) || '.' || (i / 256 % 256) || '.' || (i % 256), 0.5, i % 100 = 0, " +
+      "now() - i * interval '1 second' from generate_series(1, 40000) i",
+    "insert into admin_settings (id, setting_key, value) " +
+      "select 'a' || i, 'key' || i, '{}'::jsonb from generate_series(1, 20000) i",
+    "insert into ab_experiments (id, name, created_at) " +
+      "select 'e' || i, 'experiment ' || i, now() - i * interval '1 second' from generate_series(1, 20000) i",
+    "insert into risk_scores (id, user_id, device_score, tls_score, behavioral_score, overall_score, created_at) " +
+      "select 'r' || i, " + USER_OF_I + ", 0.5, 0.5, 0.5, random(), " + MONTH + " + i * interval '1 second' " +
+      "from generate_series(1, 100000) i",
+    "insert into geolocations (id, user_id, ip_address, latitude, longitude, created_at) " +
+      "select 'g' || i, " + USER_OF_I + ", '10.' || (i / 65536) || '.' || (i / 256 % 256) || '.' || (i % 256), " +
+      "0, 0, " + MONTH + " + i * interval '1 second' from generate_series(1, 100000) i",
+    "insert into authentication_events (id, user_id, event_type, created_at) " +
+      "select 'ae' || i, " + USER_OF_I + ", 'login', " + MONTH + " + i * interval '1 second' " +
+      "from generate_series(1, 100000) i",
+    "insert into anomaly_alerts (id, user_id, alert_type, created_at) " +
+      "select 'al' || i, " + USER_OF_I + ", 'test', " + MONTH + " + i * interval '1 second' " +
+      "from generate_series(1, 40000) i",
+    "insert into audit_logs (id, user_id, action, created_at) " +
+      "select 'au' || i, " + USER_OF_I + ", 'test', " + MONTH + " + i * interval '1 second' " +
+      "from generate_series(1, 40000) i",
+    "analyze"
+  );
+
+  @BeforeAll
+  void seed() {
+    SEED.forEach(jdbc::execute);
+  }
+
+  @Test
+  void everyRepositoryQueryMethodIsProbed() {
+    Set<String> declared = new TreeSet<>();
+    Repositories repositories = new Repositories(context);
+    for (Class<?> domain : repositories) {
+      Class<?> repo = repositories.getRequiredRepositoryInformation(domain).getRepositoryInterface();
+      for (Method m : repo.getDeclaredMethods()) {
+        if (Modifier.isAbstract(m.getModifiers())) declared.add(repo.getSimpleName() + "." + m.getName());
+      }
+    }
+    Set<String> covered = new TreeSet<>(FULL_SCANS.keySet());
+    probes().forEach(p -> covered.add(p.finder()));
+
+    Set<String> missing = new TreeSet<>(declared);
+    missing.removeAll(covered);
+    assertTrue(missing.isEmpty(), "No probe for " + missing + "; add one (or a FULL_SCANS entry) here");
+    Set<String> stale = new TreeSet<>(covered);
+    stale.removeAll(declared);
+    assertTrue(stale.isEmpty(), "Probes for finders that no longer exist: " + stale);
+  }
+
+  @TestFactory
+  Stream<DynamicTest> noSequentialScansOverLargeRelations() {
+    Map<String, Long> rowEstimates = new HashMap<>();
+    return probes().stream().map(p -> DynamicTest.dynamicTest(p.finder(), () -> {
+      List<String> statements = captured(p);
+      assertFalse(statements.isEmpty(), "finder issued no SQL");
+      for (String sql : statements) {
+        JsonNode plan = explain(inlineLimits(sql, p.limit()));
+        List<String> seqScans = new ArrayList<>();
+        collectSeqScans(plan, seqScans);
+        List<String> large = seqScans.stream()
+          .filter(rel -> rowEstimates.computeIfAbsent(rel, this::estimatedRows) >= MIN_ROWS)
+          .toList();
+        assertTrue(large.isEmpty(), "Seq Scan on " + large + " for:\n" + sql + "\nplan:\n" + plan.toPrettyString());
+      }
+    }));
+  }
+
+  /** Runs the finder in a rolled-back transaction (streams and row locks need one) and returns its SQL. */
+  private List<String> captured(Probe p) {
+    return SQL.during(() -> tx.executeWithoutResult(status -> {
+      try {
+        p.call().run();
+      } finally {
+        status.setRollbackOnly();
+      }
+    }));
+  }
+
+  private static final Pattern FETCH_FIRST = Pattern.compile("(?i)fetch\\s+(first|next)\\s+\\?\\s+rows?\\s+only");
+  private static final Pattern LIMIT = Pattern.compile("(?i)\\blimit\\s+\\?");
+  private static final Pattern OFFSET = Pattern.compile("(?i)\\boffset\\s+\\?");
+
+  /**
+   * Inlines the finder's row limit (and a zero offset) where Hibernate binds them, then numbers the remaining
+   * placeholders $1..$n for a generic plan. A generic plan would otherwise assume a limit of 10% of the table.
+   */
+  static String inlineLimits(String sql, int limit) {
+    String s = OFFSET.matcher(sql).replaceAll("offset 0");
+    if (FETCH_FIRST.matcher(s).find() || LIMIT.matcher(s).find()) {
+      assertTrue(limit > 0, "SQL binds a row limit but the probe declares none:\n" + sql);
+      s = FETCH_FIRST.matcher(s).replaceAll("fetch first " + limit + " rows only");
+      s = LIMIT.matcher(s).replaceAll("limit " + limit);
+    }
+    StringBuilder out = new StringBuilder(s.length() + 16);
+    Matcher m = Pattern.compile("\\?").matcher(s);
+    int n = 0;
+    while (m.find()) m.appendReplacement(out, Matcher.quoteReplacement("$" + (++n)));
+    m.appendTail(out);
+    return out.toString();
+  }
+
+  /**
+   * EXPLAIN (GENERIC_PLAN) on its own connection in simple query mode, so the driver passes the $n parameter
+   * symbols through instead of expecting bind values.
+   */
+  private JsonNode explain(String sql) throws Exception {
+    Properties props = new Properties();
+    props.setProperty("user", POSTGRES.getUsername());
+    props.setProperty("password", POSTGRES.getPassword());
+    props.setProperty("preferQueryMode", "simple");
+    try (Connection c = DriverManager.getConnection(POSTGRES.getJdbcUrl(), props);
+         Statement st = c.createStatement();
+         ResultSet rs = st.executeQuery("explain (generic_plan, format json) " + sql)) {
+      rs.next();
+      return om.readTree(rs.getString(1)).get(0).get("Plan");
+    }
+  }
+
+  private static void collectSeqScans(JsonNode node, List<String> out) {
+    if ("Seq Scan".equals(node.path("Node Type").asText())) out.add(node.path("Relation Name").asText());
+    for (JsonNode child : node.path("Plans")) collectSeqScans(child, out);
+  }
+
+  /** Planner row estimate after ANALYZE (partitions are estimated individually). */
+  private long estimatedRows(String relation) {
+    Double n = jdbc.queryForObject(
+      "select reltuples::float8 from pg_class where oid = to_regclass(?)",
+      Double.class, relation);
+    return n == null || n < 0 ? 0 : n.longValue();
+  }
+}
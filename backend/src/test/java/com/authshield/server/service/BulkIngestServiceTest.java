@@ -0,0 +1,46 @@
+package com.authshield.server.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BulkIngestServiceTest {
+
+  private static String csv(Object... cols) {
+    StringBuilder sb = new StringBuilder();
+    BulkIngestService.appendCsv(sb, cols);
+    return sb.toString();
+  }
+
+  @Test
+  void nullIsAnUnquotedEmptyFieldAndEmptyStringIsQuoted() {
+    assertEquals(",\"\",\n", csv(null, "", null));
+  }
+
+  @Test
+  void numbersAndBooleansAreUnquoted() {
+    assertEquals("1,2.5,true,-0.0\n", csv(1, 2.5, Boolean.TRUE, -0.0));
+  }
+
+  @Test
+  void textIsQuotedWithEmbeddedQuotesDoubled() {
+    assertEquals("\"say \"\"hi\"\"\"\n", csv("say \"hi\""));
+    assertEquals("\"\"\"\"\n", csv("\""));
+  }
+
+  @Test
+  void delimitersNewlinesAndBackslashesStayInsideTheQuotes() {
+    assertEquals("\"a,b\",\"line1\nline2\r\n\",\"C:\\\\x\"\n", csv("a,b", "line1\nline2\r\n", "C:\\\\x"));
+    // COPY's end-of-data marker only counts unquoted on a line of its own.
+    assertEquals("\"\\.\"\n", csv("\\."));
+  }
+
+  @Test
+  void otherValuesUseTheirStringForm() {
+    OffsetDateTime at = OffsetDateTime.of(2026, 1, 2, 3, 4, 5, 0, ZoneOffset.UTC);
+    assertEquals("\"2026-01-02T03:04:05Z\",\"{\"\"k\"\":1}\"\n", csv(at, "{\"k\":1}"));
+  }
+}
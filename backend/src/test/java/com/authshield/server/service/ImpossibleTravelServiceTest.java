@@ -0,0 +1,70 @@
+package com.authshield.server.service;
+
+import com.authshield.server.service.ImpossibleTravelService.TravelPattern;
+import com.authshield.server.service.LocationHistoryCache.KnownLocation;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImpossibleTravelServiceTest {
+
+  private static final double PARIS_LAT = 48.8566, PARIS_LON = 2.3522;
+  private static final double NYC_LAT = 40.7128, NYC_LON = -74.0060;
+  private static final OffsetDateTime NOW = OffsetDateTime.of(2026, 3, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+  private static KnownLocation at(double lat, double lon, OffsetDateTime t, String country) {
+    return new KnownLocation(lat, lon, t, "10.0.0.1", null, country);
+  }
+
+  @Test
+  void sameInstantJumpIsTheFastestHopNotZero() {
+    OffsetDateTime t = NOW.minusHours(2);
+    KnownLocation[] window = {at(PARIS_LAT, PARIS_LON, t, "FR"), at(NYC_LAT, NYC_LON, t, "US")};
+
+    TravelPattern p = ImpossibleTravelService.analyzeWindow(window, NYC_LAT, NYC_LON, "US", NOW);
+
+    assertEquals(2, p.hops());
+    assertTrue(Double.isFinite(p.maxHopSpeedKmh()));
+    assertTrue(p.maxHopSpeedKmh() > 100_000, "~5800 km in the one-minute floor");
+    assertEquals(p.maxHopSpeedKmh(), p.maxRecentHopSpeedKmh());
+  }
+
+  @Test
+  void alternatingBetweenTwoCitiesIsFlaggedByTheWindowEvenWhenTheLastHopIsLocal() {
+    KnownLocation[] window = {
+      at(PARIS_LAT, PARIS_LON, NOW.minusHours(3), "FR"),
+      at(NYC_LAT, NYC_LON, NOW.minusHours(2), "US"),
+      at(PARIS_LAT, PARIS_LON, NOW.minusHours(1), "FR")
+    };
+
+    TravelPattern p = ImpossibleTravelService.analyzeWindow(window, PARIS_LAT, PARIS_LON, "FR", NOW);
+
+    assertTrue(p.maxRecentHopSpeedKmh() > 5000);
+    assertTrue(p.returnToOrigin());
+    assertEquals(2, p.distinctCountries());
+  }
+
+  @Test
+  void oldImpossibleHopStillShowsButNoLongerCountsAsRecent() {
+    OffsetDateTime old = NOW.minus(ImpossibleTravelService.RECENT_HOP_WINDOW).minusHours(2);
+    KnownLocation[] window = {at(PARIS_LAT, PARIS_LON, old, "FR"), at(NYC_LAT, NYC_LON, old.plusMinutes(30), "US")};
+
+    TravelPattern p = ImpossibleTravelService.analyzeWindow(window, NYC_LAT, NYC_LON, "US", NOW);
+
+    assertTrue(p.maxHopSpeedKmh() > 5000);
+    assertEquals(0.0, p.maxRecentHopSpeedKmh());
+  }
+
+  @Test
+  void jitterIsNotTravel() {
+    KnownLocation[] window = {at(PARIS_LAT, PARIS_LON, NOW.minusMinutes(1), "FR")};
+
+    TravelPattern p = ImpossibleTravelService.analyzeWindow(window, PARIS_LAT + 0.001, PARIS_LON, "FR", NOW);
+
+    assertEquals(0.0, p.maxHopSpeedKmh());
+    assertFalse(p.returnToOrigin());
+  }
+}
@@ -0,0 +1,107 @@
+package com.authshield.server.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IpRangeTableTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void parsesDottedQuadsAcrossTheWholeRange() {
+    assertEquals(0L, IpRangeTable.parseIpv4("0.0.0.0"));
+    assertEquals(0x01020304L, IpRangeTable.parseIpv4("1.2.3.4"));
+    assertEquals(0xC0A80001L, IpRangeTable.parseIpv4("192.168.0.1"));
+    assertEquals(0xFFFFFFFFL, IpRangeTable.parseIpv4("255.255.255.255"));
+  }
+
+  @Test
+  void rejectsAnythingThatIsNotADottedQuad() {
+    for (String s : new String[]{null, "", "1.2.3", "1.2.3.4.5", "1..2.3", ".1.2.3", "1.2.3.4.", "256.0.0.1",
+                                 "1.2.3.256", " 1.2.3.4", "1.2.3.4 ", "1.2.3.-4", "a.b.c.d", "::1", "::ffff:1.2.3.4"}) {
+      assertEquals(-1L, IpRangeTable.parseIpv4(s), String.valueOf(s));
+    }
+  }
+
+  @Test
+  void findsRangesAtTheirBoundaries() throws IOException {
+    IpRangeTable t = compileAndOpen("""
+      start_ip,end_ip,country_code,country,region,city,latitude,longitude,is_proxy,is_vpn,is_tor,is_datacenter
+      10.0.0.0,10.0.0.255,US,United States,California,San Francisco,37.77,-122.42,0,0,0,1
+      1.0.0.0,1.0.0.255,AU,Australia,Queensland,Brisbane,-27.47,153.03,false,true,false,false
+      255.255.255.0,255.255.255.255,,,,,0,0,,,,
+      """);
+
+    assertEquals(3, t.size());
+    long lo = IpRangeTable.parseIpv4("10.0.0.0"), hi = IpRangeTable.parseIpv4("10.0.0.255");
+    int r = t.find(lo);
+    assertTrue(r >= 0);
+    assertEquals(r, t.find(hi));
+    assertEquals("San Francisco", t.city(r));
+    assertEquals(IpRangeTable.FLAG_DATACENTER, t.flags(r));
+    assertEquals(-1, t.find(lo - 1));
+    assertEquals(-1, t.find(hi + 1));
+
+    // Unsorted input is sorted, so the first range is the Brisbane one.
+    assertEquals(0, t.find(IpRangeTable.parseIpv4("1.0.0.7")));
+    assertEquals(IpRangeTable.FLAG_VPN, t.flags(0));
+    assertEquals(-27.47, t.latitude(0), 1e-4);
+
+    // Addresses at and above 2^31 are compared unsigned.
+    int top = t.find(0xFFFFFFFFL);
+    assertEquals(2, top);
+    assertNull(t.country(top));
+
+    assertEquals(-1, t.find(0L));
+    assertEquals(-1, t.find(-1L));
+  }
+
+  @Test
+  void keepsQuotedFieldsIntact() throws IOException {
+    IpRangeTable t = compileAndOpen("""
+      8.8.8.0,8.8.8.255,US,"United States","New York, NY","Say ""hi"" City",40.71,-74.0,0,0,0,0
+      """);
+    int r = t.find(IpRangeTable.parseIpv4("8.8.8.8"));
+    assertEquals("New York, NY", t.region(r));
+    assertEquals("Say \"hi\" City", t.city(r));
+  }
+
+  @Test
+  void emptyTableFindsNothing() throws IOException {
+    IpRangeTable t = compileAndOpen("# no ranges\n");
+    assertEquals(0, t.size());
+    assertEquals(-1, t.find(IpRangeTable.parseIpv4("1.2.3.4")));
+  }
+
+  @Test
+  void rejectsOverlappingAndInvertedRanges() throws IOException {
+    Path csv = Files.writeString(dir.resolve("overlap.csv"), """
+      1.0.0.0,1.0.0.255,AU,Australia,,,0,0
+      1.0.0.255,1.0.1.0,AU,Australia,,,0,0
+      """);
+    assertThrows(IOException.class, () -> IpRangeTable.compile(csv, dir.resolve("overlap.bin")));
+
+    Path inverted = Files.writeString(dir.resolve("inverted.csv"), "1.0.0.9,1.0.0.1,AU,Australia,,,0,0\n");
+    assertThrows(IOException.class, () -> IpRangeTable.compile(inverted, dir.resolve("inverted.bin")));
+  }
+
+  @Test
+  void refusesFilesThatAreNotRangeTables() throws IOException {
+    Path junk = Files.write(dir.resolve("junk.bin"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+    assertThrows(IOException.class, () -> IpRangeTable.open(junk));
+  }
+
+  private IpRangeTable compileAndOpen(String csvText) throws IOException {
+    Path csv = Files.writeString(dir.resolve("ranges.csv"), csvText);
+    Path bin = dir.resolve("ranges.bin");
+    IpRangeTable.compile(csv, bin);
+    return IpRangeTable.open(bin);
+  }
+}
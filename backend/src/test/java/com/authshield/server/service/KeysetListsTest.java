@@ -0,0 +1,57 @@
+package com.authshield.server.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetListsTest {
+
+  @Test
+  void cursorRoundTripsToTheSameInstantAndId() {
+    OffsetDateTime at = OffsetDateTime.of(2026, 3, 1, 12, 30, 15, 123_456_789, ZoneOffset.ofHours(2));
+    KeysetLists.Cursor c = KeysetLists.decode(KeysetLists.encode(at, "0b9e6a4c-id"));
+    assertEquals(at.toInstant(), c.at().toInstant());
+    assertEquals(ZoneOffset.UTC, c.at().getOffset());
+    assertEquals("0b9e6a4c-id", c.id());
+  }
+
+  @Test
+  void idsMayContainTheSeparatorAndNonAsciiText() {
+    OffsetDateTime at = OffsetDateTime.of(2026, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    assertEquals("a|b|c", KeysetLists.decode(KeysetLists.encode(at, "a|b|c")).id());
+    assertEquals("grüße/+?", KeysetLists.decode(KeysetLists.encode(at, "grüße/+?")).id());
+  }
+
+  @Test
+  void encodedCursorIsUrlSafe() {
+    OffsetDateTime at = OffsetDateTime.of(2026, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    assertTrue(KeysetLists.encode(at, "???>>>~~~").matches("[A-Za-z0-9_-]+"));
+  }
+
+  @Test
+  void absentCursorMeansFirstPage() {
+    assertNull(KeysetLists.decode(null));
+    assertNull(KeysetLists.decode(""));
+    assertNull(KeysetLists.decode("  "));
+  }
+
+  @Test
+  void malformedCursorsAreBadRequests() {
+    for (String bad : new String[]{"not base64!", b64("no-separator"), b64("|id-only"), b64("2026-03-01T00:00:00Z|"),
+                                   b64("yesterday|id"), b64("2026-03-01|id")}) {
+      ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> KeysetLists.decode(bad), bad);
+      assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+  }
+
+  private static String b64(String s) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(s.getBytes(StandardCharsets.UTF_8));
+  }
+}
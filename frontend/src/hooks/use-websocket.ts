@@ -38,13 +38,20 @@ export function useWebSocket(options: UseWebSocketOptions = {}) {
       socket.onopen = () => {
         setIsConnected(true);
         setReconnectAttempts(0);
+        // Ask for the recent activity the server keeps, so the feed is not empty until the next event.
+        socket.send(JSON.stringify({ action: "replay" }));
         onOpen?.();
       };
 
       socket.onmessage = (event) => {
         try {
           const data = JSON.parse(event.data);
-          onMessage?.(data);
+          // The server may coalesce several events into one frame.
+          if (data?.type === "batch" && Array.isArray(data.events)) {
+            data.events.forEach((e: any) => onMessage?.(e));
+          } else {
+            onMessage?.(data);
+          }
         } catch {
           onMessage?.(event.data);
         }
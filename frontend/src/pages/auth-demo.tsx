@@ -97,7 +97,8 @@ export default function AuthDemo() {
       return response.json();
     },
     onSuccess: (data) => {
-      if (data.behavioralScore !== undefined) {
+      // null when the behavioral stage was skipped (e.g. impossible travel); keep the previous value then.
+      if (data.behavioralScore != null) {
         setScores(prev => ({
           ...prev,
           behavioral: data.behavioralScore,
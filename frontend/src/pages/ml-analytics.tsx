@@ -495,9 +495,13 @@ export default function MLAnalytics() {
                             <Activity className="h-4 w-4" />
                             Behavioral ({((riskScoreMutation.data.weights?.behavioral || 0.40) * 100).toFixed(0)}% weight)
                           </span>
-                          <span className={`text-sm font-mono ${getScoreColor(riskScoreMutation.data.components?.behavioral)}`}>
-                            {((riskScoreMutation.data.components?.behavioral || 0) * 100).toFixed(0)}%
-                          </span>
+                          {riskScoreMutation.data.components?.behavioral == null ? (
+                            <span className="text-sm font-mono text-muted-foreground">not measured</span>
+                          ) : (
+                            <span className={`text-sm font-mono ${getScoreColor(riskScoreMutation.data.components.behavioral)}`}>
+                              {(riskScoreMutation.data.components.behavioral * 100).toFixed(0)}%
+                            </span>
+                          )}
                         </div>
                         <Progress value={(riskScoreMutation.data.components?.behavioral || 0) * 100} />
                       </div>
@@ -120,14 +120,22 @@ function CopyButton({ text }: { text: string }) {
 
 export default function TLS() {
   const [searchQuery, setSearchQuery] = useState("");
-  const [selectedFingerprint, setSelectedFingerprint] = useState<Partial<TlsFingerprint> | null>(null);
+  const [selectedRow, setSelectedRow] = useState<Partial<TlsFingerprint> | null>(null);
 
   const { data: apiFingerprints, isLoading } = useQuery<Partial<TlsFingerprint>[]>({
     queryKey: ["/api/tls-fingerprints"],
   });
   
   // Use API data if available, otherwise use demo data
-  const fingerprints = apiFingerprints && apiFingerprints.length > 0 ? apiFingerprints : demoFingerprints;
+  const isApiData = !!apiFingerprints && apiFingerprints.length > 0;
+  const fingerprints = isApiData ? apiFingerprints : demoFingerprints;
+
+  // List rows are summaries; cipher suites and extensions come from the full record.
+  const { data: selectedDetail } = useQuery<Partial<TlsFingerprint>>({
+    queryKey: ["/api/tls-fingerprints", selectedRow?.id],
+    enabled: isApiData && !!selectedRow?.id,
+  });
+  const selectedFingerprint = selectedDetail ?? selectedRow;
 
   const filteredFingerprints = fingerprints.filter((fp) => {
     const query = searchQuery.toLowerCase();
@@ -213,7 +221,7 @@ export default function TLS() {
                         <TableRow
                           key={fp.id}
                           className={`cursor-pointer ${selectedFingerprint?.id === fp.id ? "bg-muted/50" : ""}`}
-                          onClick={() => setSelectedFingerprint(fp)}
+                          onClick={() => setSelectedRow(fp)}
                           data-testid={`row-tls-${fp.id}`}
                         >
                           <TableCell>